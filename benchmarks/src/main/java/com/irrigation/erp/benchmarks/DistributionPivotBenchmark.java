@@ -0,0 +1,90 @@
+package com.irrigation.erp.benchmarks;
+
+import com.irrigation.erp.backend.dto.DistributionQuantityDTO;
+import com.irrigation.erp.backend.dto.OtherDistributionsResponseDTO;
+import com.irrigation.erp.backend.repository.InventoryIssueRepository;
+import com.irrigation.erp.backend.service.InventoryIssueService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// In-memory part of InventoryIssueService.getOtherDistributionsByUserId: grouping the aggregated rows of one page
+// into per-distribution records. The repository is a canned stub, so no database time is included.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistributionPivotBenchmark {
+
+    private static final int ITEM_NAMES = 40;
+
+    @Param({"50", "200"})
+    public int pageSize;
+
+    @Param({"3", "12"})
+    public int itemsPerDistribution;
+
+    private InventoryIssueService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> itemNames = new ArrayList<>();
+        for (int i = 0; i < ITEM_NAMES; i++) {
+            itemNames.add("Item " + i);
+        }
+
+        // Newest first, like the group query; each group spreads its quantities over random item names
+        Random random = new Random(42);
+        List<DistributionQuantityDTO> groups = new ArrayList<>();
+        List<DistributionQuantityDTO> quantities = new ArrayList<>();
+        LocalDate date = LocalDate.of(2025, 6, 30);
+        for (int g = 0; g < pageSize; g++) {
+            if (g % 3 == 0) {
+                date = date.minusDays(1);
+            }
+            long requestId = 10_000L - g;
+            groups.add(new DistributionQuantityDTO(date, requestId));
+            for (int i = 0; i < itemsPerDistribution; i++) {
+                quantities.add(new DistributionQuantityDTO(date, requestId,
+                        itemNames.get(random.nextInt(ITEM_NAMES)), BigDecimal.valueOf(1 + random.nextInt(20))));
+            }
+        }
+
+        SliceImpl<DistributionQuantityDTO> slice = new SliceImpl<>(groups, PageRequest.of(0, pageSize), true);
+        InventoryIssueRepository repository = (InventoryIssueRepository) Proxy.newProxyInstance(
+                InventoryIssueRepository.class.getClassLoader(),
+                new Class<?>[]{InventoryIssueRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findNonMaterialDistributionGroups" -> slice;
+                    case "sumNonMaterialQuantities" -> quantities;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        service = new InventoryIssueService(repository, null, null);
+    }
+
+    @Benchmark
+    public OtherDistributionsResponseDTO pivotPage() {
+        return service.getOtherDistributionsByUserId(1L, null, null, 0, pageSize);
+    }
+}
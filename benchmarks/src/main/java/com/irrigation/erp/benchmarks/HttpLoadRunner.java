@@ -0,0 +1,96 @@
+package com.irrigation.erp.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Closed-loop HTTP load against a running server: each client sends its next GET as soon as the last one is answered.
+// Prints throughput and the latency percentiles per status code, so a run against the default profile and one
+// against virtual-threads (mvn -Pjava21 spring-boot:run) show the p99 and how many requests the limiter turned away.
+//
+//   java -cp benchmarks/target/benchmarks.jar com.irrigation.erp.benchmarks.HttpLoadRunner \
+//        <url> [clients=400] [seconds=60] [warmupSeconds=10] [bearerToken]
+public class HttpLoadRunner {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: HttpLoadRunner <url> [clients] [seconds] [warmupSeconds] [bearerToken]");
+            System.exit(2);
+        }
+        URI uri = URI.create(args[0]);
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        String token = args.length > 4 ? args[4] : null;
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        long measureFrom = System.nanoTime() + Duration.ofSeconds(warmupSeconds).toNanos();
+        long measureUntil = measureFrom + Duration.ofSeconds(seconds).toNanos();
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        List<Future<List<long[]>>> results = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            results.add(clientThreads.submit(() -> {
+                // {status, latency in nanoseconds} of every request that started inside the measurement window
+                List<long[]> samples = new ArrayList<>();
+                for (long start = System.nanoTime(); start < measureUntil; start = System.nanoTime()) {
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = -1;
+                    }
+                    if (start >= measureFrom) {
+                        samples.add(new long[]{status, System.nanoTime() - start});
+                    }
+                }
+                return samples;
+            }));
+        }
+
+        Map<Long, List<Long>> latenciesByStatus = new TreeMap<>();
+        List<Long> all = new ArrayList<>();
+        for (Future<List<long[]>> result : results) {
+            for (long[] sample : result.get()) {
+                latenciesByStatus.computeIfAbsent(sample[0], status -> new ArrayList<>()).add(sample[1]);
+                all.add(sample[1]);
+            }
+        }
+        clientThreads.shutdown();
+
+        System.out.printf("%s, %d clients, %d s: %.1f requests/s%n", uri, clients, seconds, all.size() / (double) seconds);
+        print("all", all);
+        latenciesByStatus.forEach((status, latencies) -> print(status < 0 ? "I/O error" : "HTTP " + status, latencies));
+    }
+
+    private static void print(String label, List<Long> latencies) {
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        System.out.printf("  %-10s %8d  p50 %8.1f ms  p90 %8.1f ms  p99 %8.1f ms  max %8.1f ms%n", label, sorted.length,
+                millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 1.0));
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,115 @@
+package com.irrigation.erp.benchmarks;
+
+import com.irrigation.erp.backend.controller.InventoryController;
+import com.irrigation.erp.backend.dto.InventoryItemResponseDTO;
+import com.irrigation.erp.backend.enums.StockStatus;
+import com.irrigation.erp.backend.model.InventoryItem;
+import com.irrigation.erp.backend.model.ItemCategory;
+import com.irrigation.erp.backend.model.ItemType;
+import com.irrigation.erp.backend.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Item listing cost per page: entity-to-DTO mapping as done by InventoryController, the constructor used by the
+// JPQL projections that replaced the service-side mapping, and the BigDecimal stock classification both rely on
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventoryItemMappingBenchmark {
+
+    @Param({"50", "1000"})
+    public int items;
+
+    private InventoryController controller;
+    private MethodHandle convertToDto;
+    private InventoryItem[] entities;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        controller = new InventoryController(null);
+        convertToDto = MethodHandles.privateLookupIn(InventoryController.class, MethodHandles.lookup())
+                .findVirtual(InventoryController.class, "convertToDto",
+                        MethodType.methodType(InventoryItemResponseDTO.class, InventoryItem.class));
+
+        ItemCategory category = new ItemCategory(1L, "Pipes", null, "benchmark");
+        ItemType type = new ItemType(1L, "Material", null);
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("keeper");
+
+        // Fixed seed: roughly a third of the items are out of stock, low or good
+        Random random = new Random(42);
+        entities = new InventoryItem[items];
+        for (int i = 0; i < items; i++) {
+            InventoryItem item = new InventoryItem();
+            item.setId((long) i);
+            item.setItemCode("ITEM-" + i);
+            item.setItemName("Item " + i);
+            item.setItemDescription("Synthetic item " + i);
+            item.setUnitOfMeasurement("pcs");
+            item.setCurrentStockQuantity(BigDecimal.valueOf(random.nextInt(30), 2));
+            item.setMinimumStockLevel(BigDecimal.valueOf(10, 2));
+            item.setLocationInStore("Rack " + (i % 20));
+            item.setUnitPrice(BigDecimal.valueOf(1250 + i, 2));
+            item.setItemCategory(category);
+            item.setItemType(type);
+            item.setCreatingUser(user);
+            item.setLastUpdatedByUser(user);
+            item.setLastUpdatedAt(LocalDateTime.of(2025, 1, 1, 8, 0));
+            item.setIsActive(true);
+            item.setPendingPurchaseRequest(false);
+            entities[i] = item;
+        }
+    }
+
+    @Benchmark
+    public void controllerConvertToDto(Blackhole blackhole) throws Throwable {
+        for (InventoryItem item : entities) {
+            blackhole.consume((InventoryItemResponseDTO) convertToDto.invokeExact(controller, item));
+        }
+    }
+
+    @Benchmark
+    public void projectionConstructor(Blackhole blackhole) {
+        for (InventoryItem item : entities) {
+            blackhole.consume(new InventoryItemResponseDTO(item.getId(), item.getItemCode(), item.getItemName(),
+                    item.getItemDescription(), item.getUnitOfMeasurement(), item.getCurrentStockQuantity(),
+                    item.getMinimumStockLevel(), item.getLocationInStore(), item.getUnitPrice(),
+                    item.getItemCategory().getId(), item.getItemCategory().getName(),
+                    item.getItemType().getId(), item.getItemType().getName(),
+                    item.getCreatingUser().getId(), item.getCreatingUser().getUsername(),
+                    item.getLastUpdatedByUser().getId(), item.getLastUpdatedByUser().getUsername(),
+                    item.getLastUpdatedAt(), item.getIsActive(), item.getPendingPurchaseRequest()));
+        }
+    }
+
+    @Benchmark
+    public void stockStatus(Blackhole blackhole) {
+        for (InventoryItem item : entities) {
+            StockStatus status = item.getStockStatus();
+            blackhole.consume(status);
+        }
+    }
+}
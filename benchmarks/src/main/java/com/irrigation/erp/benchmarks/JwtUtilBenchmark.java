@@ -0,0 +1,105 @@
+package com.irrigation.erp.benchmarks;
+
+import com.irrigation.erp.backend.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Token generation and the per-request validation cost of JwtAuthenticationFilter.
+// legacyFilterParse replays the filter from before the claims cache: three parses, each building its own key and parser.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKey123456789012345678901234567890123456789012345";
+    private static final int DISTINCT_TOKENS = 1024;
+
+    private JwtUtil jwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+    private String[] distinctTokens;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        jwtUtil = jwtUtil(10_000);
+        // A one-entry cache with tokens rotating through it, so nearly every call parses and verifies
+        uncachedJwtUtil = jwtUtil(1);
+        token = jwtUtil.generateToken("keeper@example.com", "keeper", "STORE_KEEPER", 7L);
+        distinctTokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            distinctTokens[i] = uncachedJwtUtil.generateToken("user" + i + "@example.com", "user" + i, "STORE_KEEPER", (long) i);
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("keeper@example.com", "keeper", "STORE_KEEPER", 7L);
+    }
+
+    @Benchmark
+    public Object validateCached() {
+        return jwtUtil.getValidClaims(token);
+    }
+
+    @Benchmark
+    public Object validateUncached() {
+        next = (next + 1) % DISTINCT_TOKENS;
+        return uncachedJwtUtil.getValidClaims(distinctTokens[next]);
+    }
+
+    @Benchmark
+    public void legacyFilterParse(Blackhole blackhole) {
+        blackhole.consume(legacyClaims(token).getSubject());
+        blackhole.consume(legacyClaims(token).get("role"));
+        blackhole.consume(legacyClaims(token).getExpiration());
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    // JwtUtil is normally configured by Spring through @Value fields and @PostConstruct
+    private static JwtUtil jwtUtil(long cacheSize) throws Exception {
+        JwtUtil util = new JwtUtil();
+        set(util, "secret", SECRET);
+        set(util, "tokenExpiration", Duration.ofHours(1).toMillis());
+        set(util, "claimsCacheMaxSize", cacheSize);
+        set(util, "claimsCacheTtl", Duration.ofMinutes(5));
+        Method init = JwtUtil.class.getDeclaredMethod("init");
+        init.setAccessible(true);
+        init.invoke(util);
+        return util;
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
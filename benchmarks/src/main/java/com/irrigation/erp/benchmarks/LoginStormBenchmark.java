@@ -0,0 +1,123 @@
+package com.irrigation.erp.benchmarks;
+
+import com.irrigation.erp.backend.service.PasswordVerificationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// A login storm next to ordinary API traffic, both served by Tomcat's default 200 request threads. 256 clients log in
+// back to back while 8 clients call a light endpoint; the light endpoint's latency is the starvation the hashing
+// pool is there to prevent. inline is the old login path that ran BCrypt on the request thread. pooled hands it to
+// PasswordVerificationService and frees the request thread, as the async login endpoint does; 256 logins overrun
+// its cores + 64 queue slots, so some are answered 503 straight away and that client waits out the 1 s Retry-After
+// before logging in again. The 503 count is printed after each trial.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginStormBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int HASHING_QUEUE_CAPACITY = 64;
+    // The Retry-After the login endpoint sends with its 503
+    private static final long RETRY_AFTER_MILLIS = 1000;
+
+    // CPU spent by one light request, roughly tens of microseconds
+    @Param({"20000"})
+    public int otherRequestTokens;
+
+    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordVerificationService verificationService;
+    private String encodedPassword;
+    private ExecutorService requestThreads;
+    private final LongAdder logins = new LongAdder();
+    private final LongAdder rejectedLogins = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Same strength as the application's encoder bean
+        passwordEncoder = new BCryptPasswordEncoder();
+        encodedPassword = passwordEncoder.encode(PASSWORD);
+        verificationService = new PasswordVerificationService(passwordEncoder, 0, HASHING_QUEUE_CAPACITY);
+        requestThreads = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        requestThreads.shutdownNow();
+        verificationService.close();
+        System.out.printf("%n%d of %d logins answered 503%n", rejectedLogins.sum(), logins.sum());
+    }
+
+    @Benchmark
+    @Group("inline")
+    @GroupThreads(256)
+    public boolean inlineLogin() throws Exception {
+        logins.increment();
+        return requestThreads.submit(() -> passwordEncoder.matches(PASSWORD, encodedPassword)).get();
+    }
+
+    @Benchmark
+    @Group("inline")
+    @GroupThreads(8)
+    public long inlineOtherRequest() throws Exception {
+        return requestThreads.submit(this::otherRequest).get();
+    }
+
+    @Benchmark
+    @Group("pooled")
+    @GroupThreads(256)
+    public boolean pooledLogin() throws Exception {
+        logins.increment();
+        // The request thread only submits the check, the client waits for the verification itself
+        CompletableFuture<Boolean> verification;
+        try {
+            verification = requestThreads.submit(() -> verificationService.verify(PASSWORD, encodedPassword)).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                rejectedLogins.increment();
+                Thread.sleep(RETRY_AFTER_MILLIS);
+                return false;
+            }
+            throw e;
+        }
+        return verification.join();
+    }
+
+    @Benchmark
+    @Group("pooled")
+    @GroupThreads(8)
+    public long pooledOtherRequest() throws Exception {
+        return requestThreads.submit(this::otherRequest).get();
+    }
+
+    private long otherRequest() {
+        Blackhole.consumeCPU(otherRequestTokens);
+        return otherRequestTokens;
+    }
+}
@@ -0,0 +1,124 @@
+package com.irrigation.erp.benchmarks;
+
+import com.irrigation.erp.backend.filter.ConcurrencyLimitFilter;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-request latency of an overloaded API, one JMH thread per client. Each request runs on the server's request
+// threads and, with limit=on, through the real ConcurrencyLimitFilter before holding one of HikariCP's 10
+// connections for a simulated query. platform is Tomcat's default 200 threads; per-request starts a thread for
+// every request, which queues like virtual threads and runs on Java 17; virtual needs Java 21 (-p threading=virtual).
+// 600 clients on 10 connections of 50 ms queries queue for about 3 s, past the profile's 2 s acquire timeout.
+// SampleTime gives the latency percentiles, p0.99 is the tail; the sample count is the throughput, and the requests
+// the filter turned away are printed at the end of each trial. Only the threading and queueing are modelled,
+// HttpLoadRunner drives the real server over HTTP.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(600)
+@State(Scope.Benchmark)
+public class RequestThreadingBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int CONNECTION_POOL_SIZE = 10;
+
+    @Param({"platform", "per-request"})
+    public String threading;
+
+    @Param({"off", "on"})
+    public String limit;
+
+    @Param({"50"})
+    public int queryMillis;
+
+    @Param({"2000"})
+    public int acquireTimeoutMillis;
+
+    private ExecutorService requestThreads;
+    private Semaphore connections;
+    private ConcurrencyLimitFilter limitFilter;
+    private final LongAdder served = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connections = new Semaphore(CONNECTION_POOL_SIZE, true);
+        if ("virtual".equals(threading)) {
+            // Looked up reflectively so the module still compiles for Java 17
+            try {
+                requestThreads = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Virtual threads need Java 21, use platform or per-request on older JDKs", e);
+            }
+        } else if ("per-request".equals(threading)) {
+            requestThreads = Executors.newCachedThreadPool();
+        } else {
+            requestThreads = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        }
+        // A fixed size, so no DataSource is needed to look up the pool size
+        limitFilter = "on".equals(limit)
+                ? new ConcurrencyLimitFilter(null, CONNECTION_POOL_SIZE, Duration.ofMillis(acquireTimeoutMillis))
+                : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        requestThreads.shutdownNow();
+        long total = served.sum() + rejected.sum();
+        System.out.printf("%n%d of %d requests answered 503%n", rejected.sum(), total);
+    }
+
+    @Benchmark
+    public int request() throws Exception {
+        int status = requestThreads.submit(this::serve).get();
+        (status == 503 ? rejected : served).increment();
+        return status;
+    }
+
+    private int serve() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/inventory");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain query = (req, res) -> {
+            try {
+                connections.acquire();
+                try {
+                    Thread.sleep(queryMillis);
+                } finally {
+                    connections.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        if (limitFilter != null) {
+            limitFilter.doFilter(request, response, query);
+        } else {
+            query.doFilter(request, response);
+        }
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,34 @@
+package com.irrigation.erp.backend.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Set app.cache.enabled=false to turn every @Cacheable/@CacheEvict into a no-op
+@Configuration
+@EnableCaching
+@ConditionalOnProperty(name = "app.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CacheConfig {
+
+    public static final String CATEGORY_COUNTS = "categoryCounts";
+
+    // Transaction-aware, so @CacheEvict on a @Transactional write takes effect after the commit: evicting earlier
+    // would let a read in between cache the data the write is about to replace
+    @Bean
+    public CacheManager cacheManager(@Value("${app.cache.category-counts-ttl:30s}") Duration categoryCountsTtl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(CATEGORY_COUNTS, Caffeine.newBuilder()
+                .expireAfterWrite(categoryCountsTtl)
+                .maximumSize(1)
+                .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
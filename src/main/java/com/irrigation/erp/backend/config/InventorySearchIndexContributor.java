@@ -0,0 +1,40 @@
+package com.irrigation.erp.backend.config;
+
+import com.irrigation.erp.backend.repository.InventoryItemRepository;
+import org.hibernate.boot.ResourceStreamLocator;
+import org.hibernate.boot.model.relational.SimpleAuxiliaryDatabaseObject;
+import org.hibernate.boot.spi.AdditionalMappingContributions;
+import org.hibernate.boot.spi.AdditionalMappingContributor;
+import org.hibernate.boot.spi.InFlightMetadataCollector;
+import org.hibernate.boot.spi.MetadataBuildingContext;
+import org.hibernate.dialect.PostgreSQLDialect;
+
+import java.util.Set;
+
+// The item search trigram index for schemas created or updated by Hibernate (ddl-auto), which cannot declare
+// GIN indexes on the entity. Flyway-managed databases get the same index from V5. Registered through
+// META-INF/services; both statements are idempotent because schema update replays them on every start.
+public class InventorySearchIndexContributor implements AdditionalMappingContributor {
+
+    private static final Set<String> POSTGRES = Set.of(PostgreSQLDialect.class.getName());
+    private static final String[] NO_DROP = new String[0];
+
+    @Override
+    public String getContributorName() {
+        return "inventory-search-index";
+    }
+
+    @Override
+    public void contribute(AdditionalMappingContributions contributions, InFlightMetadataCollector metadata,
+                           ResourceStreamLocator resourceStreamLocator, MetadataBuildingContext buildingContext) {
+        contributions.contributeAuxiliaryDatabaseObject(new SimpleAuxiliaryDatabaseObject(
+                metadata.getDatabase().getDefaultNamespace(),
+                new String[]{"CREATE EXTENSION IF NOT EXISTS pg_trgm"},
+                NO_DROP, POSTGRES, true));
+        contributions.contributeAuxiliaryDatabaseObject(new SimpleAuxiliaryDatabaseObject(
+                metadata.getDatabase().getDefaultNamespace(),
+                new String[]{"CREATE INDEX IF NOT EXISTS idx_inventory_items_search_trgm ON inventory_items USING gin ("
+                        + InventoryItemRepository.SEARCH_DOCUMENT + " gin_trgm_ops)"},
+                NO_DROP, POSTGRES, false));
+    }
+}
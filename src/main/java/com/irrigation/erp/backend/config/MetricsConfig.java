@@ -0,0 +1,41 @@
+package com.irrigation.erp.backend.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Actuator, Prometheus and metric defaults. What is measured:
+//  - http.server.requests: every endpoint, tagged with the handling controller method
+//  - spring.data.repository.invocations: every Spring Data repository call, tagged repository and method
+//  - hikaricp.connections.*: pool gauges, registered by Boot for the Hikari datasource
+//  - inventory.*: business counters recorded by the services
+@Configuration
+@PropertySource("classpath:config/metrics-defaults.properties")
+public class MetricsConfig {
+
+    static final String HANDLER_TAG = "handler";
+
+    @Bean
+    public DefaultServerRequestObservationConvention handlerMethodObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context).and(handler(context));
+            }
+        };
+    }
+
+    private static KeyValue handler(ServerRequestObservationContext context) {
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod method) {
+            return KeyValue.of(HANDLER_TAG, method.getBeanType().getSimpleName() + "#" + method.getMethod().getName());
+        }
+        return KeyValue.of(HANDLER_TAG, "none");
+    }
+}
@@ -0,0 +1,51 @@
+package com.irrigation.erp.backend.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.irrigation.erp.backend.repository.NaturalIdRepositoryImpl;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+@Configuration
+@EnableJpaRepositories(basePackages = "com.irrigation.erp.backend.repository", repositoryBaseClass = NaturalIdRepositoryImpl.class)
+public class PersistenceConfig {
+
+    // Query cache region for the cached findAll() listings of reference data
+    public static final String REFERENCE_DATA_QUERIES = "reference-data";
+
+    // JDBC batching for multi-row writes such as batch issues; spring.jpa.properties.* still wins
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", 50);
+            properties.putIfAbsent("hibernate.order_inserts", true);
+            properties.putIfAbsent("hibernate.order_updates", true);
+        };
+    }
+
+    // Second-level cache for the @Cache entities (item categories, item types, roles) on a local Caffeine JCache.
+    // The hibernate.second.level.cache.* and hibernate.cache.* meters (hit and miss per region) need statistics,
+    // which are off unless spring.jpa.properties.hibernate.generate_statistics=true. Turning them on should not
+    // also log a "Session Metrics" block for every session.
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> {
+            properties.putIfAbsent("hibernate.cache.use_second_level_cache", true);
+            properties.putIfAbsent("hibernate.cache.use_query_cache", true);
+            properties.putIfAbsent("hibernate.cache.region.factory_class", "jcache");
+            properties.putIfAbsent("hibernate.javax.cache.provider", CaffeineCachingProvider.class.getName());
+            properties.putIfAbsent("hibernate.javax.cache.missing_cache_strategy", "create");
+            properties.putIfAbsent("hibernate.session.events.log", false);
+        };
+    }
+
+    // Existing databases were created by ddl-auto, so adopt them at version 0 and apply migrations from V1
+    @Bean
+    public FlywayConfigurationCustomizer baselineExistingSchemaCustomizer() {
+        return configuration -> configuration
+                .baselineOnMigrate(true)
+                .baselineVersion("0");
+    }
+}
@@ -0,0 +1,30 @@
+package com.irrigation.erp.backend.config;
+
+import org.hibernate.boot.ResourceStreamLocator;
+import org.hibernate.boot.model.relational.SimpleAuxiliaryDatabaseObject;
+import org.hibernate.boot.spi.AdditionalMappingContributions;
+import org.hibernate.boot.spi.AdditionalMappingContributor;
+import org.hibernate.boot.spi.InFlightMetadataCollector;
+import org.hibernate.boot.spi.MetadataBuildingContext;
+import org.hibernate.dialect.PostgreSQLDialect;
+
+import java.util.Set;
+
+// Schema update never relaxes an existing NOT NULL column, so ddl-auto databases created before reorder lines
+// existed get the change from here, Flyway-managed ones from V8. Dropping NOT NULL again is a no-op.
+public class PurchaseRequestSchemaContributor implements AdditionalMappingContributor {
+
+    @Override
+    public String getContributorName() {
+        return "purchase-request-schema";
+    }
+
+    @Override
+    public void contribute(AdditionalMappingContributions contributions, InFlightMetadataCollector metadata,
+                           ResourceStreamLocator resourceStreamLocator, MetadataBuildingContext buildingContext) {
+        contributions.contributeAuxiliaryDatabaseObject(new SimpleAuxiliaryDatabaseObject(
+                metadata.getDatabase().getDefaultNamespace(),
+                new String[]{"ALTER TABLE purchase_request_line_items ALTER COLUMN inventory_request_line_item_id DROP NOT NULL"},
+                new String[0], Set.of(PostgreSQLDialect.class.getName()), false));
+    }
+}
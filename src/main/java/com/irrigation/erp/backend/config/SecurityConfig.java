@@ -1,9 +1,13 @@
 package com.irrigation.erp.backend.config;
 
 import com.irrigation.erp.backend.filter.JwtAuthenticationFilter;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -20,6 +24,7 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity
 public class SecurityConfig {
 
 
@@ -43,6 +48,10 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/validate-token").permitAll()
                         .requestMatchers("/api/requests/material-distribution").permitAll()
 
+                        // Actuator is bound to the loopback management port; the scrape and health checks carry no token
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class)).permitAll()
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole("ADMIN")
+
 
 //                        .requestMatchers("/api/grn/**").hasAnyRole("STOCK_KEEPER","ADMIN")
 
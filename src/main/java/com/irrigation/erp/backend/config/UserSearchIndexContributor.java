@@ -0,0 +1,32 @@
+package com.irrigation.erp.backend.config;
+
+import com.irrigation.erp.backend.repository.UserRepository;
+import org.hibernate.boot.ResourceStreamLocator;
+import org.hibernate.boot.model.relational.SimpleAuxiliaryDatabaseObject;
+import org.hibernate.boot.spi.AdditionalMappingContributions;
+import org.hibernate.boot.spi.AdditionalMappingContributor;
+import org.hibernate.boot.spi.InFlightMetadataCollector;
+import org.hibernate.boot.spi.MetadataBuildingContext;
+import org.hibernate.dialect.PostgreSQLDialect;
+
+import java.util.Set;
+
+// The user name trigram index for ddl-auto schemas, V6 for Flyway-managed ones. pg_trgm itself comes from
+// InventorySearchIndexContributor, whose extension statement runs before any table or index is created.
+public class UserSearchIndexContributor implements AdditionalMappingContributor {
+
+    @Override
+    public String getContributorName() {
+        return "user-search-index";
+    }
+
+    @Override
+    public void contribute(AdditionalMappingContributions contributions, InFlightMetadataCollector metadata,
+                           ResourceStreamLocator resourceStreamLocator, MetadataBuildingContext buildingContext) {
+        contributions.contributeAuxiliaryDatabaseObject(new SimpleAuxiliaryDatabaseObject(
+                metadata.getDatabase().getDefaultNamespace(),
+                new String[]{"CREATE INDEX IF NOT EXISTS idx_users_name_search_trgm ON users USING gin ("
+                        + UserRepository.NAME_SEARCH_DOCUMENT + " gin_trgm_ops)"},
+                new String[0], Set.of(PostgreSQLDialect.class.getName()), false));
+    }
+}
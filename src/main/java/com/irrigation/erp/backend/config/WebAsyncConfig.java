@@ -0,0 +1,24 @@
+package com.irrigation.erp.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    // Streaming exports run as async requests, the servlet container default (30s) would cut off a year of history
+    private final Duration asyncRequestTimeout;
+
+    public WebAsyncConfig(@Value("${app.export.async-timeout:30m}") Duration asyncRequestTimeout) {
+        this.asyncRequestTimeout = asyncRequestTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncRequestTimeout.toMillis());
+    }
+}
@@ -6,11 +6,14 @@ import com.irrigation.erp.backend.dto.RoleResponseDTO;
 import com.irrigation.erp.backend.service.AuthService;
 import com.irrigation.erp.backend.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -23,26 +26,33 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    // Async: the request thread is released while the password check waits for the hashing pool
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@RequestBody LoginRequest loginRequest) {
         // Validate input
         if (loginRequest.getEmail() == null || loginRequest.getEmail().trim().isEmpty()) {
-            return ResponseEntity.badRequest()
-                    .body(new LoginResponse("Email is required", false));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new LoginResponse("Email is required", false)));
         }
 
         if (loginRequest.getPassword() == null || loginRequest.getPassword().trim().isEmpty()) {
-            return ResponseEntity.badRequest()
-                    .body(new LoginResponse("Password is required", false));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new LoginResponse("Password is required", false)));
         }
 
         // Authenticate user
-        LoginResponse response = authService.authenticateUser(loginRequest);
-
-        if (response.isSuccess()) {
-            return ResponseEntity.ok(response);
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        try {
+            return authService.authenticateUser(loginRequest).thenApply(response -> {
+                if (response.isSuccess()) {
+                    return ResponseEntity.ok(response);
+                } else {
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(new LoginResponse("Too many logins in progress, please try again", false)));
         }
     }
 
@@ -57,9 +67,7 @@ public class AuthController {
         try {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String token = authHeader.substring(7);
-                String email = jwtUtil.getEmailFromToken(token);
-                boolean isValid = jwtUtil.validateToken(token, email);
-                return ResponseEntity.ok(isValid);
+                return ResponseEntity.ok(jwtUtil.isTokenValid(token));
             }
             return ResponseEntity.ok(false);
         } catch (Exception e) {
@@ -12,6 +12,7 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Collection;
 
@@ -35,8 +36,12 @@ public class GrnController {
 
         final Long userId = body.getCreatedBy();
 
-        GRN saved = grnService.createGrn(purchaseRequestId, body, userId);
-        return new ResponseEntity<>(saved.getId(), HttpStatus.CREATED);
+        try {
+            GRN saved = grnService.createGrn(purchaseRequestId, body, userId);
+            return new ResponseEntity<>(saved.getId(), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
 
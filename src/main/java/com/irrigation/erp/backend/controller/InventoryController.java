@@ -1,17 +1,21 @@
 package com.irrigation.erp.backend.controller;
 
+import com.irrigation.erp.backend.dto.CursorPageResponseDTO;
 import com.irrigation.erp.backend.dto.InventoryItemCreateRequestDTO;
 import com.irrigation.erp.backend.dto.InventoryItemResponseDTO;
 import com.irrigation.erp.backend.dto.InventoryItemUpdateRequestDTO;
 import com.irrigation.erp.backend.dto.StockAdjustmentRequestDTO; // Assuming you have this DTO for adjustStock
+import com.irrigation.erp.backend.dto.StockLevelAtDTO;
 import com.irrigation.erp.backend.model.InventoryItem;
 import com.irrigation.erp.backend.service.InventoryService;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -124,15 +128,47 @@ public class InventoryController {
         }
     }
 
+    // Stock on hand at a past moment, e.g. ?at=2025-03-31T23:59:59
+    @GetMapping("/{itemCode}/stock-at")
+    public ResponseEntity<StockLevelAtDTO> getStockAt(@PathVariable String itemCode,
+                                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        try {
+            return ResponseEntity.ok(inventoryService.getStockAt(itemCode, at));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @GetMapping("/all")
     public ResponseEntity<List<InventoryItemResponseDTO>> getAllInventoryItems(){
-        List<InventoryItem> items = inventoryService.getAllInventoryItems();
-        List<InventoryItemResponseDTO> dtos = items.stream()
-                .map(this::convertToDto)
-                .toList();
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok(inventoryService.getAllInventoryItems());
     }
 
+    // Paged version of /all: pass nextCursor from the previous response to get the following page
+    @GetMapping("/paged")
+    public ResponseEntity<CursorPageResponseDTO<InventoryItemResponseDTO>> getInventoryItemsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = InventoryService.SORT_BY_ITEM_CODE) String sortBy) {
+        try {
+            return ResponseEntity.ok(inventoryService.getInventoryItemsPage(cursor, size, sortBy));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+
+    // Typeahead: ranked matches on item code, name and description, at most `limit` rows
+    @GetMapping("/search")
+    public ResponseEntity<List<InventoryItemResponseDTO>> searchInventoryItems(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(inventoryService.searchInventoryItems(query, limit));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 
     @GetMapping("/category/{categoryName}")
     public ResponseEntity<List<InventoryItemResponseDTO>> getInventoryItemsByCategory(@PathVariable String categoryName) {
@@ -148,11 +184,8 @@ public class InventoryController {
     @GetMapping("/category-id/{categoryId}")
     public ResponseEntity<List<InventoryItemResponseDTO>> getInventoryItemsByCategoryId(@PathVariable Long categoryId) {
         try {
-            List<InventoryItem> items = inventoryService.getInventoryItemsByCategoryId(categoryId);
-            List<InventoryItemResponseDTO> dtos = items.stream()
-                    .map(this::convertToDto)
-                    .toList();
-            return ResponseEntity.ok(dtos);
+            List<InventoryItemResponseDTO> items = inventoryService.getInventoryItemsByCategoryId(categoryId);
+            return ResponseEntity.ok(items);
         } catch (IllegalArgumentException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         }
@@ -180,11 +213,7 @@ public class InventoryController {
 
     @GetMapping("/low-stock")
     public ResponseEntity<List<InventoryItemResponseDTO>> getLowStockInventoryItems(){
-        List<InventoryItem> items = inventoryService.getLowStockItems();
-        List<InventoryItemResponseDTO> dtos = items.stream()
-                .map(this::convertToDto)
-                .toList();
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok(inventoryService.getLowStockItems());
     }
 
 
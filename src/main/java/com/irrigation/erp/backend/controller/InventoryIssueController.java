@@ -1,14 +1,21 @@
 package com.irrigation.erp.backend.controller;
 
+import com.irrigation.erp.backend.dto.CursorPageResponseDTO;
 import com.irrigation.erp.backend.dto.InventoryIssueResponseDTO;
 import com.irrigation.erp.backend.dto.OtherDistributionsResponseDTO;
+import com.irrigation.erp.backend.enums.IssueExportFormat;
 import com.irrigation.erp.backend.model.InventoryIssue;
 import com.irrigation.erp.backend.service.InventoryIssueService;
+import com.irrigation.erp.backend.service.IssueExportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.HttpStatus;
-import java.util.Collections;
+import java.time.LocalDate;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -19,9 +26,11 @@ import java.util.stream.Collectors;
 public class InventoryIssueController {
 
     private final InventoryIssueService inventoryIssueService;
+    private final IssueExportService issueExportService;
 
-    public InventoryIssueController(InventoryIssueService inventoryIssueService) {
+    public InventoryIssueController(InventoryIssueService inventoryIssueService, IssueExportService issueExportService) {
         this.inventoryIssueService = inventoryIssueService;
+        this.issueExportService = issueExportService;
     }
 
     private InventoryIssueResponseDTO convertToDto(InventoryIssue inventoryIssue) {
@@ -73,24 +82,36 @@ public class InventoryIssueController {
     @GetMapping("/all")
     public ResponseEntity<List<InventoryIssueResponseDTO>> getAllIssues() {
         try {
-            List<InventoryIssue> issues = inventoryIssueService.getAllIssues();
-            List<InventoryIssueResponseDTO> dtos = issues.stream()
-                    .map(this::convertToDto)
-                    .toList();
-            return ResponseEntity.ok(dtos);
+            return ResponseEntity.ok(inventoryIssueService.getAllIssues());
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error fetching all issues: " + e.getMessage());
         }
     }
 
+    // Streams the issue history row by row, for audit pulls that are too large for /all
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportIssues(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long itemId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        try {
+            IssueExportFormat exportFormat = IssueExportFormat.fromParameter(format);
+            StreamingResponseBody body = issueExportService.exportIssues(from, to, itemId, exportFormat);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"inventory-issues." + exportFormat.getFileExtension() + "\"")
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @GetMapping("/item/{itemId}")
     public ResponseEntity<List<InventoryIssueResponseDTO>> getIssueHistoryByItemId(@PathVariable Long itemId) {
         try {
-            List<InventoryIssue> issues = inventoryIssueService.getIssueHistoryByItemId(itemId);
-            List<InventoryIssueResponseDTO> dtos = issues.stream()
-                    .map(this::convertToDto)
-                    .toList();
-            return ResponseEntity.ok(dtos);
+            return ResponseEntity.ok(inventoryIssueService.getIssueHistoryByItemId(itemId));
         } catch (IllegalArgumentException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         } catch (Exception e) {
@@ -101,11 +122,7 @@ public class InventoryIssueController {
     @GetMapping("/item/code/{itemCode}")
     public ResponseEntity<List<InventoryIssueResponseDTO>> getIssueHistoryByItemCode(@PathVariable String itemCode) {
         try {
-            List<InventoryIssue> issues = inventoryIssueService.getIssueHistoryByItemCode(itemCode);
-            List<InventoryIssueResponseDTO> dtos = issues.stream()
-                    .map(this::convertToDto)
-                    .toList();
-            return ResponseEntity.ok(dtos);
+            return ResponseEntity.ok(inventoryIssueService.getIssueHistoryByItemCode(itemCode));
         } catch (IllegalArgumentException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         } catch (Exception e) {
@@ -116,11 +133,7 @@ public class InventoryIssueController {
     @GetMapping("/request/{requestId}")
     public ResponseEntity<List<InventoryIssueResponseDTO>> getIssuesByRequestId(@PathVariable Long requestId) {
         try {
-            List<InventoryIssue> issues = inventoryIssueService.getIssuesByRequestId(requestId);
-            List<InventoryIssueResponseDTO> dtos = issues.stream()
-                    .map(this::convertToDto)
-                    .toList();
-            return ResponseEntity.ok(dtos);
+            return ResponseEntity.ok(inventoryIssueService.getIssuesByRequestId(requestId));
         } catch (IllegalArgumentException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         } catch (Exception e) {
@@ -129,29 +142,37 @@ public class InventoryIssueController {
     }
 
     @GetMapping("/user/{userId}")
-public ResponseEntity<List<InventoryIssueResponseDTO>> getIssuesByUserId(@PathVariable Long userId) {
-    List<InventoryIssue> issues = inventoryIssueService.getIssuesByUserId(userId);
-
-
-    if (issues == null) {
-        issues = Collections.emptyList();
+    public ResponseEntity<List<InventoryIssueResponseDTO>> getIssuesByUserId(@PathVariable Long userId) {
+        return ResponseEntity.ok(inventoryIssueService.getIssuesByUserId(userId));
     }
 
-    List<InventoryIssueResponseDTO> dtos = issues.stream()
-            .map(this::convertToDto)
-            .toList();
-
-    return ResponseEntity.ok(dtos);
-}
 
+    // Issues issued to or by the user, newest first; pass nextCursor back as ?cursor= for the following page
+    @GetMapping("/user/{userId}/related")
+    public ResponseEntity<CursorPageResponseDTO<InventoryIssueResponseDTO>> getIssuesRelatedToUser(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(inventoryIssueService.getIssuesRelatedToUserPage(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 
     @GetMapping("/user/{userId}/other-distributions")
-    public ResponseEntity<OtherDistributionsResponseDTO> getOtherDistributionsByUserId(@PathVariable Long userId) {
+    public ResponseEntity<OtherDistributionsResponseDTO> getOtherDistributionsByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
         try {
-            OtherDistributionsResponseDTO distributions = inventoryIssueService.getOtherDistributionsByUserId(userId);
+            OtherDistributionsResponseDTO distributions =
+                    inventoryIssueService.getOtherDistributionsByUserId(userId, from, to, page, size);
             return ResponseEntity.ok(distributions);
         } catch (IllegalArgumentException e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error fetching distributions: " + e.getMessage());
         }
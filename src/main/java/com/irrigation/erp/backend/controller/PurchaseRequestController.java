@@ -48,6 +48,16 @@ public class PurchaseRequestController {
         }
     }
 
+    @PatchMapping("/{id}/reject")
+    public ResponseEntity<PurchaseRequest> rejectPurchaseRequest(@PathVariable Long id) {
+        try {
+            PurchaseRequest rejectedRequest = purchaseRequestService.rejectPurchaseRequest(id);
+            return ResponseEntity.ok(rejectedRequest);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+    }
+
     @GetMapping("/get-purchase-requests")
     public ResponseEntity<List<PurchaseResponseDTO>> getAllPurchaseRequests() {
         try {
@@ -1,16 +1,20 @@
 package com.irrigation.erp.backend.controller;
 
+import com.irrigation.erp.backend.dto.CursorPageResponseDTO;
 import com.irrigation.erp.backend.dto.UserDto;
 import com.irrigation.erp.backend.dto.UserStatusDTO;
 import com.irrigation.erp.backend.model.User;
 import com.irrigation.erp.backend.model.Role;
+import com.irrigation.erp.backend.service.DeactivatedUserService;
 import com.irrigation.erp.backend.service.UserService;
 import com.irrigation.erp.backend.repository.UserRepository;
 import com.irrigation.erp.backend.repository.RoleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -25,18 +29,29 @@ public class UserController {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final DeactivatedUserService deactivatedUserService;
 
-    public UserController(UserRepository userRepository, RoleRepository roleRepository, BCryptPasswordEncoder passwordEncoder) {
+    public UserController(UserRepository userRepository, RoleRepository roleRepository, BCryptPasswordEncoder passwordEncoder,
+                          DeactivatedUserService deactivatedUserService) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.deactivatedUserService = deactivatedUserService;
     }
 
-    // Get all users (using service layer)
-    @GetMapping
-    public ResponseEntity<List<UserDto>> getAllUsers() {
-        List<UserDto> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    // Paged directory, active users in username order unless asked otherwise: pass nextCursor from the
+    // previous response to get the following page. /paged is the same listing under its earlier path
+    @GetMapping({"", "/paged"})
+    public ResponseEntity<CursorPageResponseDTO<UserDto>> getUsersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = UserService.SORT_BY_USERNAME) String sortBy,
+            @RequestParam(defaultValue = "false") boolean includeInactive) {
+        try {
+            return ResponseEntity.ok(userService.getUsersPage(cursor, size, sortBy, includeInactive));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     // Get user by ID (using service layer)
@@ -46,11 +61,17 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
 
-    // Search users by name (using service layer)
+    // Search users by name (using service layer), ranked and capped at `limit` rows
     @GetMapping("/search")
-    public ResponseEntity<List<UserDto>> searchUsers(@RequestParam String name) {
-        List<UserDto> users = userService.searchUsersByName(name);
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserDto>> searchUsers(
+            @RequestParam String name,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeInactive) {
+        try {
+            return ResponseEntity.ok(userService.searchUsersByName(name, limit, includeInactive));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     // Add new user (direct repository access for user creation)
@@ -67,10 +88,11 @@ public class UserController {
         return ResponseEntity.ok(savedUser);
     }
 
-    // Delete user (direct repository access)
+    // Delete user, recording the revocation for every node
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        userRepository.deleteById(id);
+        userService.deleteUser(id);
+        deactivatedUserService.markDeleted(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -84,6 +106,12 @@ public class UserController {
                 .map(user -> {
                     user.setIsActive(statusDTO.getIsActive());
                     userRepository.save(user);
+                    // Existing tokens of a deactivated user stop working on the next request
+                    if (Boolean.TRUE.equals(user.getIsActive())) {
+                        deactivatedUserService.markActive(id);
+                    } else {
+                        deactivatedUserService.markDeactivated(id);
+                    }
                     return ResponseEntity.ok(UserDto.fromEntity(user));
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -0,0 +1,22 @@
+package com.irrigation.erp.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.security.Principal;
+
+// Principal built from JWT claims by JwtAuthenticationFilter, no database lookup involved
+@Getter
+@AllArgsConstructor
+public class AuthenticatedUser implements Principal {
+    private final Long userId;
+    private final String email;
+    private final String username;
+    private final String role;
+
+    // Authentication.getName() keeps returning the email, as it did with the plain string principal
+    @Override
+    public String getName() {
+        return email;
+    }
+}
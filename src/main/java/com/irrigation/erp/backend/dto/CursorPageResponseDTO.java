@@ -0,0 +1,20 @@
+package com.irrigation.erp.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class CursorPageResponseDTO<T> {
+
+    private List<T> items;
+
+    // Pass back as ?cursor= to get the following page, null on the last page
+    private String nextCursor;
+
+    private boolean hasNext;
+
+    private int size;
+}
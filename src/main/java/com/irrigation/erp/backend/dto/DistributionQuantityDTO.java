@@ -0,0 +1,24 @@
+package com.irrigation.erp.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DistributionQuantityDTO {
+    private LocalDate date;
+    private Long requestId;
+    private String itemName;
+    private BigDecimal quantity;
+
+    // Group key only (one distribution row), used when paging over groups
+    public DistributionQuantityDTO(LocalDate date, Long requestId) {
+        this.date = date;
+        this.requestId = requestId;
+    }
+}
@@ -18,4 +18,7 @@ public class GRNItemDTO {
     private Integer quantity;
 
     private String unit;
+
+    // Optional, receiving a line with an item code adds its quantity to that item's stock
+    private String itemCode;
 }
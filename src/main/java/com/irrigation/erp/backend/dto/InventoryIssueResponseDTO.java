@@ -1,6 +1,7 @@
 package com.irrigation.erp.backend.dto;
 
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 
 @Getter
 @Setter
+@NoArgsConstructor
 public class InventoryIssueResponseDTO {
 
     private Long id;
@@ -36,4 +38,31 @@ public class InventoryIssueResponseDTO {
     private String requestCode;
     private Long requestLineItemId;
     private BigDecimal requestedQuantity;
-}
\ No newline at end of file
+
+    // Used by the JPQL constructor projections in InventoryIssueRepository
+    public InventoryIssueResponseDTO(Long id, BigDecimal issuedQuantity, LocalDateTime issuedAt, BigDecimal itemValue,
+                                     String purpose, String notes,
+                                     Long issuedItemId, String issuedItemCode, String issuedItemName, String itemType,
+                                     Long issuedByUserId, String issuedByUsername,
+                                     Long issuedToUserId, String issuedToUsername,
+                                     Long inventoryRequestId, Long requestLineItemId, BigDecimal requestedQuantity) {
+        this.id = id;
+        this.issuedQuantity = issuedQuantity;
+        this.issuedAt = issuedAt;
+        this.itemValue = itemValue;
+        this.purpose = purpose;
+        this.notes = notes;
+        this.issuedItemId = issuedItemId;
+        this.issuedItemCode = issuedItemCode;
+        this.issuedItemName = issuedItemName;
+        this.itemType = itemType;
+        this.issuedByUserId = issuedByUserId;
+        this.issuedByUsername = issuedByUsername;
+        this.issuedToUserId = issuedToUserId;
+        this.issuedToUsername = issuedToUsername;
+        this.inventoryRequestId = inventoryRequestId;
+        this.requestCode = "REQ-" + inventoryRequestId;
+        this.requestLineItemId = requestLineItemId;
+        this.requestedQuantity = requestedQuantity;
+    }
+}
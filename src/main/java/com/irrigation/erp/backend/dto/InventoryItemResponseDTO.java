@@ -2,6 +2,7 @@ package com.irrigation.erp.backend.dto;
 
 import com.irrigation.erp.backend.enums.StockStatus;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
@@ -9,6 +10,7 @@ import java.time.LocalDateTime;
 
 @Setter
 @Getter
+@NoArgsConstructor
 public class InventoryItemResponseDTO {
 
     private Long id;
@@ -36,10 +38,37 @@ public class InventoryItemResponseDTO {
     private StockStatus stockStatus;
     private Boolean pendingPurchaseRequest;
 
-
-
-
-    // Getters and Setters
+    // Used by the JPQL constructor projections in InventoryItemRepository
+    public InventoryItemResponseDTO(Long id, String itemCode, String itemName, String itemDescription,
+                                    String unitOfMeasurement, BigDecimal currentStockQuantity,
+                                    BigDecimal minimumStockLevel, String locationInStore, BigDecimal unitPrice,
+                                    Long itemCategoryId, String itemCategoryName,
+                                    Long itemTypeId, String itemTypeName,
+                                    Long createdByUserId, String createdByUsername,
+                                    Long lastUpdatedByUserId, String lastUpdatedByUsername,
+                                    LocalDateTime lastUpdatedAt, Boolean isActive, Boolean pendingPurchaseRequest) {
+        this.id = id;
+        this.itemCode = itemCode;
+        this.itemName = itemName;
+        this.itemDescription = itemDescription;
+        this.unitOfMeasurement = unitOfMeasurement;
+        this.currentStockQuantity = currentStockQuantity;
+        this.minimumStockLevel = minimumStockLevel;
+        this.locationInStore = locationInStore;
+        this.unitPrice = unitPrice;
+        this.itemCategoryId = itemCategoryId;
+        this.itemCategoryName = itemCategoryName;
+        this.itemTypeId = itemTypeId;
+        this.itemTypeName = itemTypeName;
+        this.createdByUserId = createdByUserId;
+        this.createdByUsername = createdByUsername;
+        this.lastUpdatedByUserId = lastUpdatedByUserId;
+        this.lastUpdatedByUsername = lastUpdatedByUsername;
+        this.lastUpdatedAt = lastUpdatedAt;
+        this.isActive = isActive;
+        this.pendingPurchaseRequest = pendingPurchaseRequest;
+        this.stockStatus = StockStatus.fromLevels(currentStockQuantity, minimumStockLevel);
+    }
 
 
 }
@@ -14,6 +14,9 @@ import java.util.Map;
 public class OtherDistributionsResponseDTO {
     private List<String> itemHeaders;
     private List<DistributionRecord> distributions;
+    private int page;
+    private int size;
+    private boolean hasNext;
 
     @Data
     @NoArgsConstructor
@@ -21,6 +24,6 @@ public class OtherDistributionsResponseDTO {
     public static class DistributionRecord {
         private LocalDate date;
         private String issueNumber;
-        private Map<String, Integer> itemQuantities; // Item name -> quantity
+        private Map<String, Integer> itemQuantities; // Item name -> quantity, only items issued in this distribution
     }
 }
\ No newline at end of file
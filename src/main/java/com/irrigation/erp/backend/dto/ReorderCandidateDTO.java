@@ -0,0 +1,24 @@
+package com.irrigation.erp.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// An active item at or below its minimum level with no purchase request on the way, and how much of it
+// was issued over the reorder engine's consumption window
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReorderCandidateDTO {
+    private Long itemId;
+    private String itemCode;
+    private String itemName;
+    private Long categoryId;
+    private String categoryName;
+    private BigDecimal currentStockQuantity;
+    private BigDecimal minimumStockLevel;
+    private BigDecimal unitPrice;
+    private BigDecimal consumedQuantity;
+}
@@ -0,0 +1,18 @@
+package com.irrigation.erp.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevelAtDTO {
+    private Long itemId;
+    private String itemCode;
+    private LocalDateTime at;
+    private BigDecimal quantity;
+}
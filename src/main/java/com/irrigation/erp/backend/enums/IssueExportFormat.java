@@ -0,0 +1,26 @@
+package com.irrigation.erp.backend.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum IssueExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    IssueExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public static IssueExportFormat fromParameter(String format) {
+        for (IssueExportFormat value : values()) {
+            if (value.name().equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format '" + format + "'. Use 'ndjson' or 'csv'.");
+    }
+}
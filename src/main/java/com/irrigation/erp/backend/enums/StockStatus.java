@@ -2,6 +2,8 @@ package com.irrigation.erp.backend.enums;
 
 import lombok.Getter;
 
+import java.math.BigDecimal;
+
 
 
 @Getter
@@ -16,4 +18,19 @@ public enum StockStatus {
         this.description = description;
     }
 
+    // Shared by the entity and the DTO projections so both classify stock the same way
+    public static StockStatus fromLevels(BigDecimal currentStockQuantity, BigDecimal minimumStockLevel) {
+        if (currentStockQuantity == null || minimumStockLevel == null) {
+            return null;
+        }
+
+        if (currentStockQuantity.compareTo(BigDecimal.ZERO) <= 0) {
+            return OUT_OF_STOCK;
+        } else if (currentStockQuantity.compareTo(minimumStockLevel) <= 0) {
+            return LOW;
+        } else {
+            return GOOD;
+        }
+    }
+
 }
@@ -0,0 +1,10 @@
+package com.irrigation.erp.backend.event;
+
+import java.time.LocalDateTime;
+
+// Published by the services inside their transaction and handed to the DomainEventConsumers once it has committed.
+// Events are plain values so they can wait in domain_event_outbox as JSON when the consumers fall behind.
+public sealed interface DomainEvent permits StockIssued, StockAdjusted, RequestCompleted, ItemCreated {
+
+    LocalDateTime occurredAt();
+}
@@ -0,0 +1,18 @@
+package com.irrigation.erp.backend.event;
+
+import org.springframework.util.ClassUtils;
+
+// A side effect of committed changes, picked up as a Spring bean. Receives every event that is an instance of
+// eventType(), on the event pool: never on a request thread and never inside the transaction that caused it.
+// Exceptions are counted and logged by the dispatcher, the event is not redelivered.
+public interface DomainEventConsumer<E> {
+
+    Class<E> eventType();
+
+    void accept(E event);
+
+    // Metric tag, the bean class without any proxy suffix
+    default String name() {
+        return ClassUtils.getUserClass(getClass()).getSimpleName();
+    }
+}
@@ -0,0 +1,322 @@
+package com.irrigation.erp.backend.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Delivers committed domain events to the consumers on a small bounded pool, so no consumer runs on a request
+// thread or while the publishing transaction still holds its row locks. A transaction's events are held until it
+// completes and then queued together; whatever does not fit goes to domain_event_outbox in one batch instead of
+// blocking the caller, and drainOutbox feeds it back as capacity frees up.
+// An outbox event is claimed rather than removed and deleted once the consumers are done with it, so if the JVM
+// dies in between it is handed out again after app.events.outbox-claim-timeout-ms: at least once. Events only
+// queued in memory are lost with the JVM; those still queued at shutdown are written to the outbox.
+@Component
+public class DomainEventDispatcher {
+
+    static final String CONSUMER_TIMER = "domain.events.consumer";
+    static final String OVERFLOW = "domain.events.overflow";
+    static final String QUEUED = "domain.events.queued";
+
+    private static final Logger log = LoggerFactory.getLogger(DomainEventDispatcher.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO domain_event_outbox (event_type, payload, created_at) VALUES (?, ?, ?)
+            """;
+
+    // SKIP LOCKED lets several nodes drain the same outbox without handing out an event twice; a claim older
+    // than the timeout belonged to a node that died before its consumers finished. The rows are picked in a
+    // materialized CTE: as an IN subquery the planner may rescan it per row, and every rescan skips the rows this
+    // UPDATE has already claimed and takes the next ones, past the LIMIT
+    private static final String CLAIM_SQL = """
+            WITH claimable AS MATERIALIZED (
+                SELECT id FROM domain_event_outbox
+                WHERE claimed_at IS NULL OR claimed_at < ?
+                ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED
+            )
+            UPDATE domain_event_outbox o SET claimed_at = ?
+            FROM claimable c
+            WHERE o.id = c.id
+            RETURNING o.id, o.event_type, o.payload
+            """;
+
+    private static final String RELEASE_SQL = "UPDATE domain_event_outbox SET claimed_at = NULL WHERE id = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM domain_event_outbox WHERE id = ?";
+
+    private static final Map<String, Class<?>> EVENT_TYPES = Arrays.stream(DomainEvent.class.getPermittedSubclasses())
+            .collect(Collectors.toMap(Class::getSimpleName, Function.identity()));
+
+    private final List<DomainEventConsumer<?>> consumers;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate outboxTransaction;
+    private final ThreadPoolExecutor executor;
+    private final Counter overflow;
+    private final Duration claimTimeout;
+
+    public DomainEventDispatcher(ObjectProvider<DomainEventConsumer<?>> consumers,
+                                 JdbcTemplate jdbcTemplate,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.events.threads:2}") int threads,
+                                 @Value("${app.events.queue-capacity:1000}") int queueCapacity,
+                                 @Value("${app.events.outbox-claim-timeout-ms:300000}") long claimTimeoutMs) {
+        this.consumers = consumers.orderedStream().toList();
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        // After completion the publishing transaction's resources are still bound to the thread, outbox writes
+        // need a transaction of their own to actually be committed
+        this.outboxTransaction = new TransactionTemplate(transactionManager);
+        this.outboxTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("domain-events-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.overflow = Counter.builder(OVERFLOW).description("Events written to the outbox because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder(QUEUED, executor, pool -> pool.getQueue().size()).description("Events waiting for a consumer thread")
+                .register(meterRegistry);
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMs);
+    }
+
+    // An event published outside a transaction has nothing to wait for
+    @EventListener
+    public void onPublished(DomainEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            dispatch(List.of(event));
+            return;
+        }
+        TransactionEvents transactionEvents = (TransactionEvents) TransactionSynchronizationManager.getResource(this);
+        if (transactionEvents == null) {
+            transactionEvents = new TransactionEvents();
+            TransactionSynchronizationManager.bindResource(this, transactionEvents);
+            TransactionSynchronizationManager.registerSynchronization(transactionEvents);
+        }
+        transactionEvents.events.add(event);
+    }
+
+    // In publication order; once one event has gone to the outbox the ones after it follow, so the outbox is
+    // written at most once per call
+    private void dispatch(List<DomainEvent> events) {
+        List<DomainEvent> rejected = new ArrayList<>();
+        for (DomainEvent event : events) {
+            if (!rejected.isEmpty()) {
+                rejected.add(event);
+                continue;
+            }
+            try {
+                executor.execute(new Delivery(event, null));
+            } catch (RejectedExecutionException e) {
+                rejected.add(event);
+            }
+        }
+        if (!rejected.isEmpty()) {
+            writeToOutbox(rejected);
+            overflow.increment(rejected.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.events.outbox-drain-ms:5000}", initialDelayString = "${app.events.outbox-drain-ms:5000}")
+    public void drainOutbox() {
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0 || executor.isShutdown()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxRow> rows = outboxTransaction.execute(status -> jdbcTemplate.query(CLAIM_SQL,
+                (rs, rowNum) -> new OutboxRow(rs.getLong("id"), rs.getString("event_type"), rs.getString("payload")),
+                Timestamp.valueOf(now.minus(claimTimeout)), capacity, Timestamp.valueOf(now)));
+        if (rows == null || rows.isEmpty()) {
+            return;
+        }
+        rows.sort(Comparator.comparing(OutboxRow::id));
+
+        List<Long> unreadable = new ArrayList<>();
+        List<Long> rejected = new ArrayList<>();
+        for (OutboxRow row : rows) {
+            DomainEvent event = read(row);
+            if (event == null) {
+                unreadable.add(row.id());
+                continue;
+            }
+            if (!rejected.isEmpty()) {
+                rejected.add(row.id());
+                continue;
+            }
+            try {
+                executor.execute(new Delivery(event, row.id()));
+            } catch (RejectedExecutionException e) {
+                // New events took the room meanwhile, the rest is left for the next drain
+                rejected.add(row.id());
+            }
+        }
+        batchById(DELETE_SQL, unreadable);
+        batchById(RELEASE_SQL, rejected);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            return;
+        }
+        List<Delivery> pending = executor.shutdownNow().stream()
+                .filter(Delivery.class::isInstance)
+                .map(Delivery.class::cast)
+                .toList();
+        List<DomainEvent> inMemory = pending.stream().filter(task -> task.outboxId == null).map(task -> task.event).toList();
+        if (!inMemory.isEmpty()) {
+            writeToOutbox(inMemory);
+        }
+        // Claimed outbox events are left for the other nodes at once instead of after the claim timeout
+        batchById(RELEASE_SQL, pending.stream().map(task -> task.outboxId).filter(Objects::nonNull).toList());
+    }
+
+    private void deliver(DomainEvent event) {
+        for (DomainEventConsumer<?> consumer : consumers) {
+            if (consumer.eventType().isInstance(event)) {
+                deliver(consumer, event);
+            }
+        }
+    }
+
+    private <E> void deliver(DomainEventConsumer<E> consumer, DomainEvent event) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            consumer.accept(consumer.eventType().cast(event));
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            log.warn("Consumer {} failed on {}", consumer.name(), event, e);
+        } finally {
+            sample.stop(Timer.builder(CONSUMER_TIMER)
+                    .description("Time spent by each consumer on one event")
+                    .tag("consumer", consumer.name())
+                    .tag("event", event.getClass().getSimpleName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private void writeToOutbox(List<DomainEvent> events) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(events.size());
+        for (DomainEvent event : events) {
+            try {
+                args.add(new Object[]{event.getClass().getSimpleName(), objectMapper.writeValueAsString(event), now});
+            } catch (JsonProcessingException e) {
+                log.error("Dropping {}, it cannot be written to the outbox", event, e);
+            }
+        }
+        outboxTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, args));
+    }
+
+    private void batchById(String sql, List<Long> ids) {
+        if (!ids.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, ids.stream().map(id -> new Object[]{id}).toList());
+        }
+    }
+
+    private DomainEvent read(OutboxRow row) {
+        Class<?> type = EVENT_TYPES.get(row.eventType());
+        try {
+            if (type != null) {
+                return (DomainEvent) objectMapper.readValue(row.payload(), type);
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Dropping outbox event {}, its payload cannot be read", row.id(), e);
+            return null;
+        }
+        log.error("Dropping outbox event {} of unknown type {}", row.id(), row.eventType());
+        return null;
+    }
+
+    private record OutboxRow(Long id, String eventType, String payload) {
+    }
+
+    // The events one transaction published, bound to it until it completes. Unbound while the transaction is
+    // suspended so a REQUIRES_NEW inside it collects its own events.
+    private final class TransactionEvents implements TransactionSynchronization {
+
+        private final List<DomainEvent> events = new ArrayList<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(DomainEventDispatcher.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(DomainEventDispatcher.this, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DomainEventDispatcher.this);
+            if (status == STATUS_COMMITTED) {
+                dispatch(events);
+            }
+        }
+    }
+
+    // Keeps the event reachable from the queue, shutdownNow hands back the tasks that never ran. An event
+    // claimed from the outbox leaves it once every consumer has seen it.
+    private final class Delivery implements Runnable {
+
+        private final DomainEvent event;
+        private final Long outboxId;
+
+        private Delivery(DomainEvent event, Long outboxId) {
+            this.event = event;
+            this.outboxId = outboxId;
+        }
+
+        @Override
+        public void run() {
+            deliver(event);
+            if (outboxId != null) {
+                jdbcTemplate.update(DELETE_SQL, outboxId);
+            }
+        }
+    }
+}
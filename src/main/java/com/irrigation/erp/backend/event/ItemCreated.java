@@ -0,0 +1,14 @@
+package com.irrigation.erp.backend.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record ItemCreated(Long itemId,
+                          String itemCode,
+                          String itemName,
+                          Long itemCategoryId,
+                          BigDecimal initialStock,
+                          BigDecimal minimumStockLevel,
+                          Long createdByUserId,
+                          LocalDateTime occurredAt) implements DomainEvent {
+}
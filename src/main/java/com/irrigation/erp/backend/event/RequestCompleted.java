@@ -0,0 +1,10 @@
+package com.irrigation.erp.backend.event;
+
+import java.time.LocalDateTime;
+
+// An inventory request whose last open line was issued
+public record RequestCompleted(Long requestId,
+                               Long requesterUserId,
+                               Long processedByUserId,
+                               LocalDateTime occurredAt) implements DomainEvent {
+}
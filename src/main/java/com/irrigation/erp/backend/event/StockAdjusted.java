@@ -0,0 +1,14 @@
+package com.irrigation.erp.backend.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record StockAdjusted(Long itemId,
+                            String itemCode,
+                            BigDecimal quantityChange,
+                            BigDecimal stockAfter,
+                            BigDecimal minimumStockLevel,
+                            Long adjustedByUserId,
+                            String reason,
+                            LocalDateTime occurredAt) implements DomainEvent, StockChange {
+}
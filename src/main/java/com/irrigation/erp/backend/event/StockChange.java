@@ -0,0 +1,24 @@
+package com.irrigation.erp.backend.event;
+
+import java.math.BigDecimal;
+
+// Events that moved an item's stock, for consumers that do not care whether it was an issue or an adjustment
+public interface StockChange {
+
+    Long itemId();
+
+    String itemCode();
+
+    // Signed, negative when stock went down
+    BigDecimal quantityChange();
+
+    BigDecimal stockAfter();
+
+    BigDecimal minimumStockLevel();
+
+    // True only for the change that took the item from above its minimum level to at or below it
+    default boolean crossedMinimum() {
+        BigDecimal stockBefore = stockAfter().subtract(quantityChange());
+        return stockAfter().compareTo(minimumStockLevel()) <= 0 && stockBefore.compareTo(minimumStockLevel()) > 0;
+    }
+}
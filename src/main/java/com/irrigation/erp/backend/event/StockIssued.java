@@ -0,0 +1,22 @@
+package com.irrigation.erp.backend.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One inventory issue, single or part of a batch
+public record StockIssued(Long issueId,
+                          Long requestId,
+                          Long requestLineItemId,
+                          Long itemId,
+                          String itemCode,
+                          BigDecimal issuedQuantity,
+                          BigDecimal stockAfter,
+                          BigDecimal minimumStockLevel,
+                          Long issuedByUserId,
+                          LocalDateTime occurredAt) implements DomainEvent, StockChange {
+
+    @Override
+    public BigDecimal quantityChange() {
+        return issuedQuantity.negate();
+    }
+}
@@ -1,19 +1,25 @@
 package com.irrigation.erp.backend.filter;
 
+import com.irrigation.erp.backend.dto.AuthenticatedUser;
+import com.irrigation.erp.backend.service.DeactivatedUserService;
 import com.irrigation.erp.backend.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -21,6 +27,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private DeactivatedUserService deactivatedUserService;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -36,35 +45,54 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String email = null;
-        String jwtToken = null;
+        AuthenticatedUser user = null;
 
-        // JWT Token is in the form "Bearer token"
+        // JWT Token is in the form "Bearer token"; parsed and verified once per request
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
-            try {
-                email = jwtUtil.getEmailFromToken(jwtToken);
-            } catch (Exception e) {
-                logger.error("Unable to get JWT Token or JWT Token has expired: " + e.getMessage());
+            String jwtToken = requestTokenHeader.substring(7);
+            Optional<Claims> claims = jwtUtil.getValidClaims(jwtToken);
+            if (claims.isPresent()) {
+                user = toAuthenticatedUser(claims.get());
+            } else {
+                logger.error("Unable to get JWT Token or JWT Token has expired");
             }
         } else {
             logger.warn("JWT Token does not begin with Bearer String");
         }
 
-        // Validate token
+        // Validate token; without a user id it cannot be checked for revocation
         boolean shouldAuthenticate =
-                email != null
-                        && SecurityContextHolder.getContext().getAuthentication() == null
-                        && jwtUtil.validateToken(jwtToken, email);
+                user != null
+                        && user.getEmail() != null
+                        && user.getUserId() != null
+                        && !deactivatedUserService.isRevoked(user.getUserId())
+                        && SecurityContextHolder.getContext().getAuthentication() == null;
 
         if (shouldAuthenticate) {
             UsernamePasswordAuthenticationToken authToken =
-                    new UsernamePasswordAuthenticationToken(email, null, new ArrayList<>());
+                    new UsernamePasswordAuthenticationToken(user, null, authoritiesFor(user));
             authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authToken);
         }
 
         filterChain.doFilter(request, response);
     }
-}
 
+    // Everything the request needs about the caller comes from the signed claims
+    private AuthenticatedUser toAuthenticatedUser(Claims claims) {
+        Object userId = claims.get(JwtUtil.USER_ID);
+        return new AuthenticatedUser(
+                userId != null ? Long.valueOf(userId.toString()) : null,
+                claims.getSubject(),
+                claims.get("username", String.class),
+                claims.get("role", String.class)
+        );
+    }
+
+    private List<GrantedAuthority> authoritiesFor(AuthenticatedUser user) {
+        if (user.getRole() == null || user.getRole().isBlank()) {
+            return List.of();
+        }
+        return List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole()));
+    }
+}
@@ -0,0 +1,35 @@
+package com.irrigation.erp.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Domain events waiting for a consumer thread, written and claimed by DomainEventDispatcher through JDBC.
+// Mapped so ddl-auto schemas get the table too; Flyway-managed ones get it from V7 and claimed_at from V12.
+@Entity
+@Table(name = "domain_event_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DomainEventOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Set while a node is delivering the event, the row is deleted once the consumers are done
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+}
@@ -32,6 +32,11 @@ public class GoodsReceivingItem {
 
     private String unit;
 
+    // Set when the line restocks a catalogue item, the quantity is then added to its stock
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inventory_item_id")
+    private InventoryItem inventoryItem;
+
 
 
 }
@@ -11,7 +11,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "inventory_items")
+@Table(name = "inventory_items", indexes = {
+        @Index(name = "idx_inventory_items_low_stock_category", columnList = "low_stock, item_category_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -76,7 +78,12 @@ public class  InventoryItem {
     private Boolean isActive = true;
 
     @Column(name = "pending_purchase_request", nullable = false)
-    private Boolean pendingPurchaseRequest;
+    private Boolean pendingPurchaseRequest = false;
+
+    // Maintained by PostgreSQL from the stock levels, matches StockStatus LOW / OUT_OF_STOCK
+    @Column(name = "low_stock", insertable = false, updatable = false,
+            columnDefinition = "boolean GENERATED ALWAYS AS (current_stock_quantity <= minimum_stock_level OR current_stock_quantity <= 0) STORED")
+    private Boolean lowStock;
 
 
 
@@ -89,19 +96,22 @@ public class  InventoryItem {
 
 
     public StockStatus getStockStatus() {
-        if (this.currentStockQuantity == null || this.minimumStockLevel == null) {
-            return null;
-        }
+        return StockStatus.fromLevels(this.currentStockQuantity, this.minimumStockLevel);
+    }
 
-            if (this.currentStockQuantity.compareTo(BigDecimal.ZERO) <= 0) {
-                return StockStatus.OUT_OF_STOCK;
-            } else if (this.currentStockQuantity.compareTo(this.minimumStockLevel) <= 0) {
-                return StockStatus.LOW;
-            } else {
-                return StockStatus.GOOD;
-            }
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
         }
+        if (!(o instanceof InventoryItem other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
 
-
-
+    @Override
+    public int hashCode() {
+        return InventoryItem.class.hashCode();
+    }
 }
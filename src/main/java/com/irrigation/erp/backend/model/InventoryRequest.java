@@ -55,6 +55,19 @@ public class InventoryRequest {
         lineItem.setRequest(this);
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InventoryRequest other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
 
-
+    @Override
+    public int hashCode() {
+        return InventoryRequest.class.hashCode();
+    }
 }
@@ -15,8 +15,10 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class InventoryRequestLineItem {
     //for requests of more than one item
+    // Pooled sequence (see V4 migration) so all lines of a request are inserted in one batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_request_line_items_seq")
+    @SequenceGenerator(name = "inventory_request_line_items_seq", sequenceName = "inventory_request_line_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -35,5 +37,19 @@ public class InventoryRequestLineItem {
     @Column(nullable = false)
     private RequestLineItemStatus status;
 
-
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InventoryRequestLineItem other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return InventoryRequestLineItem.class.hashCode();
+    }
 }
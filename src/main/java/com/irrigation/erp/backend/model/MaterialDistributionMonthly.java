@@ -0,0 +1,46 @@
+package com.irrigation.erp.backend.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+// Quantity of an item issued by or to a user in one calendar month (issue_month = yyyymm).
+// Maintained by MaterialDistributionRollupService alongside every inventory issue write.
+@Entity
+@Table(name = "material_distribution_monthly")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MaterialDistributionMonthly {
+
+    @EmbeddedId
+    private Key id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", insertable = false, updatable = false)
+    private InventoryItem item;
+
+    @Column(nullable = false, precision = 38, scale = 2)
+    private BigDecimal quantity;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private Long userId;
+
+        @Column(name = "item_id", nullable = false)
+        private Long itemId;
+
+        @Column(name = "issue_month", nullable = false)
+        private Integer issueMonth;
+    }
+}
@@ -24,8 +24,10 @@ public class PurchaseRequest {
         REJECTED
     }
 
+    // Pooled sequences (see V8 migration) so the reorder engine writes its drafts and their lines as JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "purchase_requests_seq")
+    @SequenceGenerator(name = "purchase_requests_seq", sequenceName = "purchase_requests_seq", allocationSize = 50)
     private Long id;
 
     private String division;
@@ -17,7 +17,8 @@ import java.math.BigDecimal;
 public class PurchaseRequestLineItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "purchase_request_line_items_seq")
+    @SequenceGenerator(name = "purchase_request_line_items_seq", sequenceName = "purchase_request_line_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -25,9 +26,14 @@ public class PurchaseRequestLineItem {
     private PurchaseRequest purchaseRequest;
 
 
-    @Column(name = "inventory_request_line_item_id", nullable = false)
+    // Set for lines raised from an inventory request, reorder lines have none
+    @Column(name = "inventory_request_line_item_id")
     private Long inventoryRequestLineItemId;
 
+    // Set for lines drafted by the reorder engine
+    @Column(name = "inventory_item_id")
+    private Long inventoryItemId;
+
 
     @Column(name = "item_name", nullable = false)
     private String itemName;
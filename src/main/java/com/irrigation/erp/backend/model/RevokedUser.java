@@ -0,0 +1,26 @@
+package com.irrigation.erp.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Users deleted through UserService.deleteUser, written and read by UserRepository's native queries.
+// Mapped so ddl-auto schemas get the table too; Flyway-managed ones get it from V13.
+@Entity
+@Table(name = "revoked_users")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedUser {
+
+    // The deleted user's id, not a reference: the users row is gone
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
@@ -0,0 +1,56 @@
+package com.irrigation.erp.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Append-only ledger of every stock change, written by StockLedgerService through JDBC in the transaction
+// that changes currentStockQuantity. Mapped so ddl-auto schemas get the table too; Flyway-managed ones get it from V9.
+@Entity
+@Table(name = "stock_movements",
+        indexes = @Index(name = "idx_stock_movements_item_id", columnList = "item_id, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+
+    public enum Type {
+        OPENING,
+        ISSUE,
+        ADJUSTMENT,
+        RECEIPT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "item_id")
+    private InventoryItem item;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false, length = 16)
+    private Type movementType;
+
+    // Signed: issues are negative, receipts positive
+    @Column(nullable = false, precision = 38, scale = 2)
+    private BigDecimal quantity;
+
+    @Column(name = "moved_at", nullable = false)
+    private LocalDateTime movedAt;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Issue id for ISSUE, goods receiving item id for RECEIPT
+    @Column(name = "reference_id")
+    private Long referenceId;
+
+    @Column(columnDefinition = "TEXT")
+    private String note;
+}
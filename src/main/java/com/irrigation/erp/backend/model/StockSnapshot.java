@@ -0,0 +1,50 @@
+package com.irrigation.erp.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Sum of an item's stock movements up to and including lastMovementId, so a point-in-time lookup only adds
+// the movements after the nearest snapshot. Written by StockLedgerService through JDBC.
+@Entity
+@Table(name = "stock_snapshots",
+        indexes = @Index(name = "idx_stock_snapshots_item_moved_at", columnList = "item_id, last_moved_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshot {
+
+    @EmbeddedId
+    private Key id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", insertable = false, updatable = false)
+    private InventoryItem item;
+
+    @Column(name = "last_moved_at", nullable = false)
+    private LocalDateTime lastMovedAt;
+
+    @Column(nullable = false, precision = 38, scale = 2)
+    private BigDecimal quantity;
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "item_id", nullable = false)
+        private Long itemId;
+
+        @Column(name = "last_movement_id", nullable = false)
+        private Long lastMovementId;
+    }
+}
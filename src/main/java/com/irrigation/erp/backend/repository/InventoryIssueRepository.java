@@ -1,14 +1,22 @@
 package com.irrigation.erp.backend.repository;
 
-import com.irrigation.erp.backend.dto.MaterialDistributionTableDTO;
+import com.irrigation.erp.backend.dto.DistributionQuantityDTO;
+import com.irrigation.erp.backend.dto.InventoryIssueResponseDTO;
 import com.irrigation.erp.backend.model.InventoryIssue;
-import com.irrigation.erp.backend.model.InventoryItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface InventoryIssueRepository extends JpaRepository<InventoryIssue, Long> {
@@ -16,51 +24,112 @@ public interface InventoryIssueRepository extends JpaRepository<InventoryIssue,
     @Query("SELECT COALESCE(SUM(i.issuedQuantity), 0.0) FROM InventoryIssue i WHERE i.requestLineItem.id = :lineItemId")
     Double sumIssuedQuantityByRequestLineItemId(@Param("lineItemId") Long lineItemId);
 
-    // Existing methods
-    List<InventoryIssue> findByIssuedItemOrderByIssuedAtDesc(InventoryItem issuedItem);
-    List<InventoryIssue> findAllByOrderByIssuedAtDesc();
-    List<InventoryIssue> findByInventoryRequestIdOrderByIssuedAtDesc(Long requestId);
-    List<InventoryIssue> findByIssuedByUserIdOrderByIssuedAtDesc(Long userId);
-    List<InventoryIssue> findByIssuedToUserIdOrderByIssuedAtDesc(Long userId);
-
-    // NEW METHOD: Get issues for a specific user with Non-Material items only
-    @Query("SELECT ii FROM InventoryIssue ii " +
-            "JOIN ii.issuedItem item " +
-            "JOIN item.itemType type " +
-            "WHERE ii.issuedToUser.id = :userId " +
-            "AND type.name = 'Non Materials' " +
-            "ORDER BY ii.issuedAt DESC")
-    List<InventoryIssue> findNonMaterialIssuesByIssuedToUserId(@Param("userId") Long userId);
-
-    // NEW METHOD: Get all Non-Material item names that have been issued
-    @Query("SELECT DISTINCT item.itemName FROM InventoryIssue ii " +
-            "JOIN ii.issuedItem item " +
-            "JOIN item.itemType type " +
-            "WHERE type.name = 'Non Materials' " +
-            "ORDER BY item.itemName")
-    List<String> findDistinctNonMaterialItemNames();
-
+    // One row per (issue date, request) distribution of Non-Material items, newest first
+    @Query("""
+            SELECT new com.irrigation.erp.backend.dto.DistributionQuantityDTO(
+                cast(ii.issuedAt as LocalDate), ii.inventoryRequest.id
+            )
+            FROM InventoryIssue ii
+            JOIN ii.issuedItem item
+            JOIN item.itemType type
+            WHERE ii.issuedToUser.id = :userId
+              AND type.name = 'Non Materials'
+              AND ii.issuedAt >= :from AND ii.issuedAt < :to
+            GROUP BY cast(ii.issuedAt as LocalDate), ii.inventoryRequest.id
+            ORDER BY cast(ii.issuedAt as LocalDate) DESC, ii.inventoryRequest.id DESC
+            """)
+    Slice<DistributionQuantityDTO> findNonMaterialDistributionGroups(@Param("userId") Long userId,
+                                                                     @Param("from") LocalDateTime from,
+                                                                     @Param("to") LocalDateTime to,
+                                                                     Pageable pageable);
 
+    // Summed quantity per item for the given requests, only items that were actually issued come back
     @Query("""
-    SELECT new com.irrigation.erp.backend.dto.MaterialDistributionTableDTO(
-        COALESCE(SUM(CASE WHEN MONTH(i.issuedAt) = :previousMonth AND YEAR(i.issuedAt) = :previousMonthYear THEN i.issuedQuantity END), 0),
-        COALESCE(SUM(CASE WHEN MONTH(i.issuedAt) = :currentMonth AND YEAR(i.issuedAt) = :currentYear THEN i.issuedQuantity END), 0),
-        COALESCE(SUM(i.issuedQuantity), 0),
-        i.issuedItem.itemName,
-        i.issuedItem.id
-    )
-    FROM InventoryIssue i
-    JOIN i.issuedItem item
-    JOIN item.itemType t
-    WHERE LOWER(t.name) = 'material'
-      AND (i.issuedByUser.id = :userId OR i.issuedToUser.id = :userId)
-    GROUP BY i.issuedItem.itemName, i.issuedItem.id
-""")
-    List<MaterialDistributionTableDTO> getMaterialDistributionTable(
-            @Param("userId") Long userId,
-            @Param("currentMonth") int currentMonth,
-            @Param("currentYear") int currentYear,
-            @Param("previousMonth") int previousMonth,
-            @Param("previousMonthYear") int previousMonthYear);
-
-}
\ No newline at end of file
+            SELECT new com.irrigation.erp.backend.dto.DistributionQuantityDTO(
+                cast(ii.issuedAt as LocalDate), ii.inventoryRequest.id, item.itemName, SUM(ii.issuedQuantity)
+            )
+            FROM InventoryIssue ii
+            JOIN ii.issuedItem item
+            JOIN item.itemType type
+            WHERE ii.issuedToUser.id = :userId
+              AND type.name = 'Non Materials'
+              AND ii.issuedAt >= :from AND ii.issuedAt < :to
+              AND ii.inventoryRequest.id IN :requestIds
+            GROUP BY cast(ii.issuedAt as LocalDate), ii.inventoryRequest.id, item.itemName
+            """)
+    List<DistributionQuantityDTO> sumNonMaterialQuantities(@Param("userId") Long userId,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to,
+                                                          @Param("requestIds") Collection<Long> requestIds);
+
+    // Flattened InventoryIssueResponseDTO in a single joined select, nothing lands in the persistence context
+    String ISSUE_DTO_QUERY = """
+            SELECT new com.irrigation.erp.backend.dto.InventoryIssueResponseDTO(
+                ii.id, ii.issuedQuantity, ii.issuedAt, ii.itemValue, ii.purpose, ii.notes,
+                item.id, item.itemCode, item.itemName, type.name,
+                byUser.id, byUser.username, toUser.id, toUser.username,
+                request.id, line.id, line.requestedQuantity
+            )
+            FROM InventoryIssue ii
+            JOIN ii.issuedItem item
+            JOIN item.itemType type
+            JOIN ii.issuedByUser byUser
+            JOIN ii.issuedToUser toUser
+            JOIN ii.inventoryRequest request
+            JOIN ii.requestLineItem line
+            """;
+
+    // Export cursor: rows are pulled from the server in fetch-size chunks while the caller writes them out
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(ISSUE_DTO_QUERY +
+            "WHERE ii.issuedAt >= :from AND ii.issuedAt < :to AND (:itemId IS NULL OR item.id = :itemId) " +
+            "ORDER BY ii.issuedAt DESC, ii.id DESC")
+    Stream<InventoryIssueResponseDTO> streamIssueDTOs(@Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to,
+                                                      @Param("itemId") Long itemId);
+
+    // Issue listings, each one joined select over the (column, issued_at DESC, id DESC) indexes
+    @Query(ISSUE_DTO_QUERY + "ORDER BY ii.issuedAt DESC, ii.id DESC")
+    List<InventoryIssueResponseDTO> findAllIssueDTOs();
+
+    @Query(ISSUE_DTO_QUERY + "WHERE item.id = :itemId ORDER BY ii.issuedAt DESC, ii.id DESC")
+    List<InventoryIssueResponseDTO> findIssueDTOsByItemId(@Param("itemId") Long itemId);
+
+    @Query(ISSUE_DTO_QUERY + "WHERE request.id = :requestId ORDER BY ii.issuedAt DESC, ii.id DESC")
+    List<InventoryIssueResponseDTO> findIssueDTOsByRequestId(@Param("requestId") Long requestId);
+
+    @Query(ISSUE_DTO_QUERY + "WHERE toUser.id = :userId ORDER BY ii.issuedAt DESC, ii.id DESC")
+    List<InventoryIssueResponseDTO> findIssueDTOsByIssuedToUserId(@Param("userId") Long userId);
+
+    @Query(ISSUE_DTO_QUERY + "WHERE byUser.id = :userId ORDER BY ii.issuedAt DESC, ii.id DESC")
+    List<InventoryIssueResponseDTO> findIssueDTOsByIssuedByUserId(@Param("userId") Long userId);
+
+    @Query(ISSUE_DTO_QUERY + "WHERE ii.id IN :ids ORDER BY ii.issuedAt DESC, ii.id DESC")
+    List<InventoryIssueResponseDTO> findIssueDTOsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset page of issue ids issued to or by the user. Each branch walks its own (user, issued_at DESC, id DESC)
+    // index and stops after :limit rows; UNION drops the rows a user issued to themselves
+    @Query(value = """
+            SELECT related.id FROM (
+                (SELECT ii.id, ii.issued_at FROM inventory_issues ii
+                 WHERE ii.issued_to_user_id = :userId AND (ii.issued_at, ii.id) < (:issuedAt, :id)
+                 ORDER BY ii.issued_at DESC, ii.id DESC
+                 LIMIT :limit)
+                UNION
+                (SELECT ii.id, ii.issued_at FROM inventory_issues ii
+                 WHERE ii.issued_by_user_id = :userId AND (ii.issued_at, ii.id) < (:issuedAt, :id)
+                 ORDER BY ii.issued_at DESC, ii.id DESC
+                 LIMIT :limit)
+            ) related
+            ORDER BY related.issued_at DESC, related.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findRelatedToUserIdsAfter(@Param("userId") Long userId,
+                                         @Param("issuedAt") LocalDateTime issuedAt,
+                                         @Param("id") Long id,
+                                         @Param("limit") int limit);
+
+}
@@ -2,13 +2,24 @@
 
 package com.irrigation.erp.backend.repository;
 
+import com.irrigation.erp.backend.dto.InventoryItemResponseDTO;
+import com.irrigation.erp.backend.dto.ReorderCandidateDTO;
 import com.irrigation.erp.backend.model.InventoryItem;
 import com.irrigation.erp.backend.model.ItemCategory;
+import com.irrigation.erp.backend.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +29,9 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     // Existing methods
     Optional<InventoryItem> findByItemCode(String itemCode);
 
+    // One query for all the codes of a multi-line request
+    List<InventoryItem> findByItemCodeIn(Collection<String> itemCodes);
+
     // NEW METHOD: Find inventory items by category
     List<InventoryItem> findByItemCategory(ItemCategory itemCategory);
 
@@ -37,6 +51,140 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     Long countByItemCategory(@Param("category") ItemCategory category);
 
     // NEW METHOD: Get inventory items with low stock by category
-    @Query("SELECT i FROM InventoryItem i WHERE i.itemCategory = :category AND i.currentStockQuantity <= i.minimumStockLevel")
+    @Query("SELECT i FROM InventoryItem i WHERE i.itemCategory = :category AND i.lowStock = true")
     List<InventoryItem> findLowStockItemsByCategory(@Param("category") ItemCategory category);
-}
\ No newline at end of file
+
+    // Flattened InventoryItemResponseDTO in a single joined select, no lazy loads while mapping
+    String ITEM_DTO_QUERY = """
+            SELECT new com.irrigation.erp.backend.dto.InventoryItemResponseDTO(
+                i.id, i.itemCode, i.itemName, i.itemDescription, i.unitOfMeasurement,
+                i.currentStockQuantity, i.minimumStockLevel, i.locationInStore, i.unitPrice,
+                c.id, c.name, t.id, t.name,
+                cu.id, cu.username, lu.id, lu.username,
+                i.lastUpdatedAt, i.isActive, i.pendingPurchaseRequest
+            )
+            FROM InventoryItem i
+            JOIN i.itemCategory c
+            JOIN i.itemType t
+            JOIN i.creatingUser cu
+            LEFT JOIN i.lastUpdatedByUser lu
+            """;
+
+    @Query(ITEM_DTO_QUERY + "ORDER BY i.id")
+    List<InventoryItemResponseDTO> findAllItemDTOs();
+
+    @Query(ITEM_DTO_QUERY + "WHERE c.id = :categoryId ORDER BY i.id")
+    List<InventoryItemResponseDTO> findItemDTOsByCategoryId(@Param("categoryId") Long categoryId);
+
+    // Low stock rows only, served from the generated low_stock column and its index
+    @Query(ITEM_DTO_QUERY + "WHERE i.lowStock = true ORDER BY i.id")
+    List<InventoryItemResponseDTO> findLowStockItemDTOs();
+
+    @Query(ITEM_DTO_QUERY + "WHERE i.lowStock = true AND c.id = :categoryId ORDER BY i.id")
+    List<InventoryItemResponseDTO> findLowStockItemDTOsByCategoryId(@Param("categoryId") Long categoryId);
+
+    // NEW METHOD: Keyset pages ordered by item code, id keeps the order stable across pages
+    @Query(ITEM_DTO_QUERY + "ORDER BY i.itemCode, i.id")
+    Slice<InventoryItemResponseDTO> findFirstPageOrderByItemCode(Pageable pageable);
+
+    @Query(ITEM_DTO_QUERY +
+            "WHERE i.itemCode > :itemCode OR (i.itemCode = :itemCode AND i.id > :id) " +
+            "ORDER BY i.itemCode, i.id")
+    Slice<InventoryItemResponseDTO> findPageAfterItemCode(@Param("itemCode") String itemCode, @Param("id") Long id, Pageable pageable);
+
+    // NEW METHOD: Keyset pages ordered by id
+    @Query(ITEM_DTO_QUERY + "ORDER BY i.id")
+    Slice<InventoryItemResponseDTO> findFirstPageOrderById(Pageable pageable);
+
+    @Query(ITEM_DTO_QUERY + "WHERE i.id > :id ORDER BY i.id")
+    Slice<InventoryItemResponseDTO> findPageAfterId(@Param("id") Long id, Pageable pageable);
+
+    // Lower-cased text searched by /items/search. The trigram index is built on exactly this expression,
+    // keep it in step with V5__inventory_items_search_index.sql
+    String SEARCH_DOCUMENT = "lower(item_code || ' ' || item_name || ' ' || coalesce(item_description, ''))";
+
+    // Substring match served by the trigram index. Exact and prefix code hits rank first, then name
+    // prefixes, then the closest names
+    @Query(value = "SELECT id FROM inventory_items WHERE " + SEARCH_DOCUMENT + " LIKE :pattern " +
+            """
+            ORDER BY CASE
+                         WHEN lower(item_code) = :q THEN 0
+                         WHEN lower(item_code) LIKE :prefix THEN 1
+                         WHEN lower(item_name) LIKE :prefix THEN 2
+                         ELSE 3
+                     END,
+                     similarity(lower(item_name), :q) DESC,
+                     item_code, id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> searchItemIds(@Param("q") String q, @Param("pattern") String pattern,
+                             @Param("prefix") String prefix, @Param("limit") int limit);
+
+    @Query(ITEM_DTO_QUERY + "WHERE i.id IN :ids")
+    List<InventoryItemResponseDTO> findItemDTOsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Atomic stock changes: the row lock taken by the UPDATE serialises concurrent writers,
+    // and the WHERE clause rejects the change instead of letting stock go negative
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE InventoryItem i
+            SET i.currentStockQuantity = i.currentStockQuantity - :quantity,
+                i.lastUpdatedByUser = :updatedBy,
+                i.lastUpdatedAt = :updatedAt
+            WHERE i.id = :id AND i.currentStockQuantity >= :quantity
+            """)
+    int deductStock(@Param("id") Long id, @Param("quantity") BigDecimal quantity,
+                    @Param("updatedBy") User updatedBy, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE InventoryItem i
+            SET i.currentStockQuantity = i.currentStockQuantity + :quantityChange,
+                i.lastUpdatedByUser = :updatedBy,
+                i.lastUpdatedAt = :updatedAt
+            WHERE i.id = :id AND (:allowNegative = true OR i.currentStockQuantity + :quantityChange >= 0)
+            """)
+    int adjustStock(@Param("id") Long id, @Param("quantityChange") BigDecimal quantityChange, @Param("allowNegative") boolean allowNegative,
+                    @Param("updatedBy") User updatedBy, @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Row locks for a whole batch, taken in id order so concurrent batches cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM InventoryItem i WHERE i.id IN :ids ORDER BY i.id")
+    List<InventoryItem> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM InventoryItem i WHERE i.itemCode IN :itemCodes ORDER BY i.id")
+    List<InventoryItem> findAllByItemCodeInForUpdate(@Param("itemCodes") Collection<String> itemCodes);
+
+    // Reorder engine input in one statement: the low_stock index finds the items, the item/issued_at index
+    // on inventory_issues sums what each one consumed since :since
+    @Query("""
+            SELECT new com.irrigation.erp.backend.dto.ReorderCandidateDTO(
+                i.id, i.itemCode, i.itemName, c.id, c.name, i.currentStockQuantity, i.minimumStockLevel, i.unitPrice,
+                COALESCE(SUM(ii.issuedQuantity), 0))
+            FROM InventoryItem i
+            JOIN i.itemCategory c
+            LEFT JOIN InventoryIssue ii ON ii.issuedItem = i AND ii.issuedAt >= :since
+            WHERE i.lowStock = true AND i.isActive = true AND i.pendingPurchaseRequest = false
+            GROUP BY i.id, i.itemCode, i.itemName, c.id, c.name, i.currentStockQuantity, i.minimumStockLevel, i.unitPrice
+            ORDER BY c.name, i.itemCode
+            """)
+    List<ReorderCandidateDTO> findReorderCandidates(@Param("since") LocalDateTime since);
+
+    // Flags the items as having a purchase request on the way and returns the ids it changed; an item flagged
+    // by someone else since it was read is left out
+    @Query(value = """
+            UPDATE inventory_items SET pending_purchase_request = true, last_updated_at = :updatedAt
+            WHERE id IN :ids AND pending_purchase_request = false
+            RETURNING id
+            """, nativeQuery = true)
+    List<Long> claimForReorder(@Param("ids") Collection<Long> ids, @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Undoes claimForReorder once the purchase request has been received or rejected, returns the ids it changed
+    @Query(value = """
+            UPDATE inventory_items SET pending_purchase_request = false, last_updated_at = :updatedAt
+            WHERE id IN :ids AND pending_purchase_request = true
+            RETURNING id
+            """, nativeQuery = true)
+    List<Long> releaseFromReorder(@Param("ids") Collection<Long> ids, @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -3,9 +3,22 @@ package com.irrigation.erp.backend.repository;
 
 import com.irrigation.erp.backend.model.InventoryRequestLineItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface InventoryRequestLineItemRepository extends JpaRepository<InventoryRequestLineItem, Long> {
 
+    // Batch issue: every line with its request and requester in one select
+    @Query("""
+            SELECT l FROM InventoryRequestLineItem l
+            JOIN FETCH l.request r
+            JOIN FETCH r.requester
+            WHERE l.id IN :ids
+            """)
+    List<InventoryRequestLineItem> findAllWithRequestByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,14 +1,43 @@
 package com.irrigation.erp.backend.repository;
 
 
+import com.irrigation.erp.backend.config.PersistenceConfig;
+import com.irrigation.erp.backend.dto.CategoryWithCountDTO;
 import com.irrigation.erp.backend.model.ItemCategory;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ItemCategoryRepository extends JpaRepository<ItemCategory , Long> {
-    Optional<ItemCategory>findByName(String name);
-}
+public interface ItemCategoryRepository extends NaturalIdRepository<ItemCategory , Long> {
+
+    default Optional<ItemCategory> findByName(String name) {
+        return findBySimpleNaturalId(name);
+    }
 
+    @Override
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = PersistenceConfig.REFERENCE_DATA_QUERIES)
+    })
+    List<ItemCategory> findAll();
+
+    // Item and low-stock counts for every category in one grouped query
+    @Query("""
+            SELECT new com.irrigation.erp.backend.dto.CategoryWithCountDTO(
+                c.id, c.name, c.description,
+                COUNT(i.id),
+                COALESCE(SUM(CASE WHEN i.lowStock = true THEN 1L ELSE 0L END), 0L)
+            )
+            FROM ItemCategory c
+            LEFT JOIN InventoryItem i ON i.itemCategory = c
+            GROUP BY c.id, c.name, c.description
+            ORDER BY c.id
+            """)
+    List<CategoryWithCountDTO> findAllWithItemCounts();
+}
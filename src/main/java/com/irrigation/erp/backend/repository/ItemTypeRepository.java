@@ -1,13 +1,27 @@
 package com.irrigation.erp.backend.repository;
 
 
+import com.irrigation.erp.backend.config.PersistenceConfig;
 import com.irrigation.erp.backend.model.ItemType;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ItemTypeRepository extends JpaRepository<ItemType, Long> {
-    Optional<ItemType>findByName(String name);
+public interface ItemTypeRepository extends NaturalIdRepository<ItemType, Long> {
+
+    default Optional<ItemType> findByName(String name) {
+        return findBySimpleNaturalId(name);
+    }
+
+    @Override
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = PersistenceConfig.REFERENCE_DATA_QUERIES)
+    })
+    List<ItemType> findAll();
 }
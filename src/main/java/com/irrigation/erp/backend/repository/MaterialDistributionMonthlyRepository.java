@@ -0,0 +1,35 @@
+package com.irrigation.erp.backend.repository;
+
+import com.irrigation.erp.backend.dto.MaterialDistributionTableDTO;
+import com.irrigation.erp.backend.model.MaterialDistributionMonthly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MaterialDistributionMonthlyRepository extends JpaRepository<MaterialDistributionMonthly, MaterialDistributionMonthly.Key> {
+
+    // Reads at most one row per item and month for the user instead of every issue
+    @Query("""
+    SELECT new com.irrigation.erp.backend.dto.MaterialDistributionTableDTO(
+        COALESCE(SUM(CASE WHEN m.id.issueMonth = :previousMonth THEN m.quantity END), 0),
+        COALESCE(SUM(CASE WHEN m.id.issueMonth = :currentMonth THEN m.quantity END), 0),
+        COALESCE(SUM(m.quantity), 0),
+        item.itemName,
+        item.id
+    )
+    FROM MaterialDistributionMonthly m
+    JOIN m.item item
+    JOIN item.itemType t
+    WHERE LOWER(t.name) = 'material'
+      AND m.id.userId = :userId
+    GROUP BY item.itemName, item.id
+""")
+    List<MaterialDistributionTableDTO> getMaterialDistributionTable(
+            @Param("userId") Long userId,
+            @Param("currentMonth") int currentMonth,
+            @Param("previousMonth") int previousMonth);
+}
@@ -0,0 +1,14 @@
+package com.irrigation.erp.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.Optional;
+
+// Lookup by an entity's @NaturalId through Hibernate's natural-id resolution, so a cached
+// entity is found without a query
+@NoRepositoryBean
+public interface NaturalIdRepository<T, ID> extends JpaRepository<T, ID> {
+
+    Optional<T> findBySimpleNaturalId(Object naturalId);
+}
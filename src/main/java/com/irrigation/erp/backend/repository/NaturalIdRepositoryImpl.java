@@ -0,0 +1,30 @@
+package com.irrigation.erp.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+// Repository base class (see PersistenceConfig); only repositories extending NaturalIdRepository expose the lookup
+@Transactional(readOnly = true)
+public class NaturalIdRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> implements NaturalIdRepository<T, ID> {
+
+    private final JpaEntityInformation<T, ?> entityInformation;
+    private final EntityManager entityManager;
+
+    public NaturalIdRepositoryImpl(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<T> findBySimpleNaturalId(Object naturalId) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(entityInformation.getJavaType())
+                .loadOptional(naturalId);
+    }
+}
@@ -1,10 +1,25 @@
 package com.irrigation.erp.backend.repository;
 
+import com.irrigation.erp.backend.config.PersistenceConfig;
 import com.irrigation.erp.backend.model.Role;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface RoleRepository extends JpaRepository<Role, Long> { // Changed from Integer to Long
-    Role findByName(String name);
-}
\ No newline at end of file
+public interface RoleRepository extends NaturalIdRepository<Role, Long> { // Changed from Integer to Long
+
+    default Role findByName(String name) {
+        return findBySimpleNaturalId(name).orElse(null);
+    }
+
+    @Override
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = PersistenceConfig.REFERENCE_DATA_QUERIES)
+    })
+    List<Role> findAll();
+}
@@ -1,11 +1,16 @@
 package com.irrigation.erp.backend.repository;
 
+import com.irrigation.erp.backend.dto.UserDto;
 import com.irrigation.erp.backend.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,15 +23,61 @@ public interface UserRepository extends JpaRepository<User, Long> {
   // Find active users only
   List<User> findAll();
 
-  // Search by first name or last name containing the search term (case insensitive) for active users only
-  @Query("SELECT u FROM User u WHERE u.isActive = true AND " +
-          "(LOWER(u.firstName) LIKE LOWER(CONCAT('%', :firstName, '%')) OR " +
-          "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :lastName, '%')))")
-  List<User> findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCaseAndIsActiveTrue(
-          @Param("firstName") String firstName, @Param("lastName") String lastName);
-
   // Custom query to search by full name for active users only
   @Query("SELECT u FROM User u WHERE u.isActive = true AND " +
           "LOWER(CONCAT(u.firstName, ' ', u.lastName)) LIKE LOWER(CONCAT('%', :name, '%'))")
   List<User> findByFullNameContainingAndIsActiveTrue(@Param("name") String name);
+
+  // Role name comes from the join, so a page of users does not load each role separately
+  String USER_DTO_QUERY = """
+          SELECT new com.irrigation.erp.backend.dto.UserDto(
+              u.id, u.username, u.email, u.firstName, u.lastName, u.contactNumber, r.name, u.isActive, u.branch)
+          FROM User u LEFT JOIN u.role r
+          """;
+
+  String ACTIVE_FILTER = "(:includeInactive = true OR u.isActive = true) ";
+
+  // Keyset pages ordered by username (unique) or id
+  @Query(USER_DTO_QUERY + "WHERE " + ACTIVE_FILTER + "ORDER BY u.username")
+  Slice<UserDto> findFirstPageOrderByUsername(@Param("includeInactive") boolean includeInactive, Pageable pageable);
+
+  @Query(USER_DTO_QUERY + "WHERE " + ACTIVE_FILTER + "AND u.username > :username ORDER BY u.username")
+  Slice<UserDto> findPageAfterUsername(@Param("username") String username,
+                                       @Param("includeInactive") boolean includeInactive, Pageable pageable);
+
+  @Query(USER_DTO_QUERY + "WHERE " + ACTIVE_FILTER + "ORDER BY u.id")
+  Slice<UserDto> findFirstPageOrderById(@Param("includeInactive") boolean includeInactive, Pageable pageable);
+
+  @Query(USER_DTO_QUERY + "WHERE " + ACTIVE_FILTER + "AND u.id > :id ORDER BY u.id")
+  Slice<UserDto> findPageAfterId(@Param("id") Long id,
+                                 @Param("includeInactive") boolean includeInactive, Pageable pageable);
+
+  // Lower-cased full name searched by /users/search. The trigram index is built on exactly this expression,
+  // keep it in step with V6__users_name_search_index.sql
+  String NAME_SEARCH_DOCUMENT = "lower(coalesce(first_name, '') || ' ' || coalesce(last_name, ''))";
+
+  // Substring match served by the trigram index. First and last name prefixes rank first, then the closest names
+  @Query(value = "SELECT id FROM users WHERE " + NAME_SEARCH_DOCUMENT + " LIKE :pattern " +
+          "AND (:includeInactive = true OR is_active = true) " +
+          "ORDER BY CASE WHEN lower(first_name) LIKE :prefix OR lower(last_name) LIKE :prefix THEN 0 ELSE 1 END, " +
+          "similarity(" + NAME_SEARCH_DOCUMENT + ", :q) DESC, username " +
+          "LIMIT :limit", nativeQuery = true)
+  List<Long> searchUserIdsByName(@Param("q") String q, @Param("pattern") String pattern, @Param("prefix") String prefix,
+                                 @Param("includeInactive") boolean includeInactive, @Param("limit") int limit);
+
+  @Query(USER_DTO_QUERY + "WHERE u.id IN :ids")
+  List<UserDto> findUserDTOsByIdIn(@Param("ids") Collection<Long> ids);
+
+  // Ids only, used to seed the deactivated-user cache for the JWT filter
+  @Query("SELECT u.id FROM User u WHERE u.isActive = false")
+  List<Long> findInactiveUserIds();
+
+  // Deleted users are recorded in revoked_users by the same transaction that deletes them
+  @Modifying
+  @Query(value = "INSERT INTO revoked_users (user_id, revoked_at) VALUES (:id, now()) " +
+          "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+  void recordDeleted(@Param("id") Long id);
+
+  @Query(value = "SELECT user_id FROM revoked_users", nativeQuery = true)
+  List<Long> findDeletedUserIds();
 }
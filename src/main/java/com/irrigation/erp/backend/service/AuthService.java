@@ -10,12 +10,13 @@ import com.irrigation.erp.backend.repository.RoleRepository;
 import com.irrigation.erp.backend.repository.UserRepository;
 import com.irrigation.erp.backend.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,7 +26,10 @@ public class AuthService {
     private UserRepository userRepository;
 
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordVerificationService passwordVerificationService;
+
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
 
     @Autowired
     private RoleRepository roleRepository;
@@ -33,51 +37,62 @@ public class AuthService {
     @Autowired
     private JwtUtil jwtUtil;
 
-    public LoginResponse authenticateUser(LoginRequest loginRequest) {
+    // The user lookup runs on the calling thread, the BCrypt check on the password-hashing pool.
+    // Throws RejectedExecutionException when that pool is saturated.
+    public CompletableFuture<LoginResponse> authenticateUser(LoginRequest loginRequest) {
         try {
             // Find user by email
             Optional<User> userOptional = userRepository.findByEmail(loginRequest.getEmail());
 
             if (userOptional.isEmpty()) {
-                return new LoginResponse("Invalid email or password", false);
+                return CompletableFuture.completedFuture(new LoginResponse("Invalid email or password", false));
             }
 
             User user = userOptional.get();
 
             // Check if user is active
             if (!user.getIsActive()) {
-                return new LoginResponse("Account is deactivated", false);
-            }
-
-            // Verify password
-            if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
-                return new LoginResponse("Invalid email or password", false);
+                return CompletableFuture.completedFuture(new LoginResponse("Account is deactivated", false));
             }
 
-            // Update last login time
-            user.setLastLogin(LocalDateTime.now());
-            userRepository.save(user);
-
-            // Generate JWT token
+            // Read everything the response needs while the persistence context is still open on this thread
             String roleName = user.getRole() != null ? user.getRole().getName() : "USER";
-            String token = jwtUtil.generateToken(
-                    user.getEmail(),
-                    user.getUsername(),
-                    roleName,
-                    user.getId()
-            );
-
-            // Convert to DTO (excluding sensitive information)
             UserDto userDto = convertToDto(user);
 
-            // Create response with token
-            LoginResponse response = new LoginResponse("Login successful", true, userDto);
-            response.setToken(token);
-
-            return response;
-
+            // Verify password
+            return passwordVerificationService.verify(loginRequest.getPassword(), user.getPassword())
+                    .thenApply(matches -> {
+                        if (!matches) {
+                            return new LoginResponse("Invalid email or password", false);
+                        }
+
+                        // Update last login time, written in the next batched flush
+                        lastLoginRecorder.record(user.getId(), LocalDateTime.now());
+
+                        // Generate JWT token
+                        String token = jwtUtil.generateToken(
+                                user.getEmail(),
+                                user.getUsername(),
+                                roleName,
+                                user.getId()
+                        );
+
+                        // Create response with token
+                        LoginResponse response = new LoginResponse("Login successful", true, userDto);
+                        response.setToken(token);
+
+                        return response;
+                    })
+                    .exceptionally(e -> {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        return new LoginResponse("Login failed: " + cause.getMessage(), false);
+                    });
+
+        } catch (RejectedExecutionException e) {
+            // Hashing pool is full, the controller turns this into 503
+            throw e;
         } catch (Exception e) {
-            return new LoginResponse("Login failed: " + e.getMessage(), false);
+            return CompletableFuture.completedFuture(new LoginResponse("Login failed: " + e.getMessage(), false));
         }
     }
 
@@ -1,26 +1,28 @@
 package com.irrigation.erp.backend.service;
 
+import com.irrigation.erp.backend.config.CacheConfig;
+import com.irrigation.erp.backend.config.PersistenceConfig;
 import com.irrigation.erp.backend.dto.CategoryWithCountDTO;
-import com.irrigation.erp.backend.enums.StockStatus;
-import com.irrigation.erp.backend.model.InventoryItem;
 import com.irrigation.erp.backend.model.ItemCategory;
-import com.irrigation.erp.backend.repository.InventoryItemRepository;
 import com.irrigation.erp.backend.repository.ItemCategoryRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class CategoryService {
 
     private final ItemCategoryRepository itemCategoryRepository;
-    private final InventoryItemRepository inventoryItemRepository;
+    private final EntityManagerFactory entityManagerFactory;
 
-    public CategoryService(ItemCategoryRepository itemCategoryRepository,
-                           InventoryItemRepository inventoryItemRepository) {
+    public CategoryService(ItemCategoryRepository itemCategoryRepository, EntityManagerFactory entityManagerFactory) {
         this.itemCategoryRepository = itemCategoryRepository;
-        this.inventoryItemRepository = inventoryItemRepository;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
     public List<ItemCategory> getAllCategories() {
@@ -37,45 +39,41 @@ public class CategoryService {
                 .orElseThrow(() -> new IllegalArgumentException("Category with name '" + categoryName + "' not found"));
     }
     // ✅ Add new category with createdBy
+    @CacheEvict(cacheNames = CacheConfig.CATEGORY_COUNTS, allEntries = true)
     public ItemCategory addCategory(ItemCategory category) {
     if (category.getCreatedBy() == null || category.getCreatedBy().isBlank()) {
         throw new IllegalArgumentException("createdBy cannot be null or empty");
     }
-    return itemCategoryRepository.save(category);
+    ItemCategory saved = itemCategoryRepository.save(category);
+    evictCachedCategories();
+    return saved;
 }
 
     // ✅ Update category
+    @CacheEvict(cacheNames = CacheConfig.CATEGORY_COUNTS, allEntries = true)
     public ItemCategory updateCategory(Long categoryId, String name, String description, String updatedBy) {
         ItemCategory category = getCategoryById(categoryId);
         category.setName(name);
         category.setDescription(description);
         category.setCreatedBy(updatedBy); // 👈 optional: track who last updated
-        return itemCategoryRepository.save(category);
+        ItemCategory saved = itemCategoryRepository.save(category);
+        evictCachedCategories();
+        return saved;
     }
 
 
+    // Short-lived snapshot, evicted whenever categories or item stock change
+    @Cacheable(CacheConfig.CATEGORY_COUNTS)
     public List<CategoryWithCountDTO> getAllCategoriesWithCounts() {
-        List<ItemCategory> categories = itemCategoryRepository.findAll();
-
-        return categories.stream().map(category -> {
-            List<InventoryItem> items = inventoryItemRepository.findByItemCategory(category);
-            Long itemCount = (long) items.size();
-
-            // Count low stock items
-            Long lowStockCount = items.stream()
-                    .mapToLong(item -> {
-                        StockStatus status = item.getStockStatus();
-                        return (status == StockStatus.LOW || status == StockStatus.OUT_OF_STOCK) ? 1 : 0;
-                    })
-                    .sum();
+        return itemCategoryRepository.findAllWithItemCounts();
+    }
 
-            return new CategoryWithCountDTO(
-                    category.getId(),
-                    category.getName(),
-                    category.getDescription(),
-                    itemCount,
-                    lowStockCount
-            );
-        }).toList();
+    // Hibernate keeps its READ_WRITE regions in step with its own writes; dropping them here also
+    // covers renames and inserts that raced a cached listing or name lookup
+    private void evictCachedCategories() {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(ItemCategory.class);
+        cache.evictNaturalIdData(ItemCategory.class);
+        cache.evictQueryRegion(PersistenceConfig.REFERENCE_DATA_QUERIES);
     }
-}
\ No newline at end of file
+}
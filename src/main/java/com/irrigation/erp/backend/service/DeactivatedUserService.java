@@ -0,0 +1,78 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.repository.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory set of users whose tokens must be rejected, checked by the JWT filter on every request.
+// Status changes made through UserController apply immediately; the scheduled reload picks up
+// anything changed directly in the database or by another instance, and deletions from revoked_users.
+@Service
+public class DeactivatedUserService {
+
+    private final UserRepository userRepository;
+    private final Object reloadLock = new Object();
+    private volatile Set<Long> deactivatedUserIds = ConcurrentHashMap.newKeySet();
+    // Ids are never reused, so a deleted user stays revoked
+    private final Set<Long> deletedUserIds = ConcurrentHashMap.newKeySet();
+    // Status changes made while a reload is querying, replayed over its result (true = deactivated)
+    private Map<Long, Boolean> changesDuringReload;
+
+    public DeactivatedUserService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    // A token without a user id cannot be checked against the lists, so it is never honoured
+    public boolean isRevoked(Long userId) {
+        return userId == null || deactivatedUserIds.contains(userId) || deletedUserIds.contains(userId);
+    }
+
+    public synchronized void markDeactivated(Long userId) {
+        deactivatedUserIds.add(userId);
+        if (changesDuringReload != null) {
+            changesDuringReload.put(userId, true);
+        }
+    }
+
+    public synchronized void markActive(Long userId) {
+        deactivatedUserIds.remove(userId);
+        if (changesDuringReload != null) {
+            changesDuringReload.put(userId, false);
+        }
+    }
+
+    public void markDeleted(Long userId) {
+        deletedUserIds.add(userId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${auth.deactivated-users.refresh-ms:60000}", initialDelayString = "${auth.deactivated-users.refresh-ms:60000}")
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                changesDuringReload = new HashMap<>();
+            }
+            Set<Long> reloaded = ConcurrentHashMap.newKeySet();
+            reloaded.addAll(userRepository.findInactiveUserIds());
+            deletedUserIds.addAll(userRepository.findDeletedUserIds());
+            synchronized (this) {
+                changesDuringReload.forEach((userId, deactivated) -> {
+                    if (deactivated) {
+                        reloaded.add(userId);
+                    } else {
+                        reloaded.remove(userId);
+                    }
+                });
+                deactivatedUserIds = reloaded;
+                changesDuringReload = null;
+            }
+        }
+    }
+}
@@ -1,37 +1,59 @@
 package com.irrigation.erp.backend.service;
 
+import com.irrigation.erp.backend.config.CacheConfig;
 import com.irrigation.erp.backend.dto.CreateGrnRequest;
 import com.irrigation.erp.backend.dto.GRNItemDTO;
 import com.irrigation.erp.backend.dto.GrnCheckResponseDTO;
 import com.irrigation.erp.backend.model.GRN;
 import com.irrigation.erp.backend.model.GoodsReceivingItem;
+import com.irrigation.erp.backend.model.InventoryItem;
 import com.irrigation.erp.backend.model.PurchaseRequest;
 import com.irrigation.erp.backend.model.User;
 import com.irrigation.erp.backend.repository.GoodsReceivingNoteRepository;
+import com.irrigation.erp.backend.repository.InventoryItemRepository;
 import com.irrigation.erp.backend.repository.PurchaseRequestRepository;
 import com.irrigation.erp.backend.repository.UserRepository;
 import jakarta.transaction.Transactional;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class GrnService {
     private final GoodsReceivingNoteRepository grnRepository;
     private final PurchaseRequestRepository purchaseRequestRepository;
     private final UserRepository userRepository; // <-- adapt to your project
+    private final InventoryItemRepository inventoryItemRepository;
+    private final StockLedgerService stockLedgerService;
+    private final ReorderService reorderService;
 
     public GrnService(GoodsReceivingNoteRepository grnRepository,
                       PurchaseRequestRepository purchaseRequestRepository,
-                      UserRepository userRepository) {
+                      UserRepository userRepository,
+                      InventoryItemRepository inventoryItemRepository,
+                      StockLedgerService stockLedgerService,
+                      ReorderService reorderService) {
         this.grnRepository = grnRepository;
         this.purchaseRequestRepository = purchaseRequestRepository;
         this.userRepository = userRepository;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.stockLedgerService = stockLedgerService;
+        this.reorderService = reorderService;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORY_COUNTS, allEntries = true)
     public GRN createGrn(Long purchaseRequestId, CreateGrnRequest dto, Long userId) {
         // Get the User by userId
         User createdBy = userRepository.findById(userId)
@@ -57,17 +79,55 @@ public class GrnService {
         grn.setPurchaseRequest(pr); // Associate the GRN with the PurchaseRequest
         grn.setCreatedBy(createdBy); // Associate the GRN with the user
 
+        // Lines with an item code restock that item, by a positive quantity like any other stock increase
+        for (GRNItemDTO row : dto.getItems()) {
+            if (row.getItemCode() != null && (row.getQuantity() == null || row.getQuantity() <= 0)) {
+                throw new IllegalArgumentException("Received quantity for item '" + row.getItemCode() + "' must be positive.");
+            }
+        }
+
+        // Lock the restocked items in id order, like a batch issue
+        Set<String> itemCodes = dto.getItems().stream()
+                .map(GRNItemDTO::getItemCode)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, InventoryItem> itemsByCode = Map.of();
+        if (!itemCodes.isEmpty()) {
+            itemsByCode = inventoryItemRepository.findAllByItemCodeInForUpdate(itemCodes).stream()
+                    .collect(Collectors.toMap(InventoryItem::getItemCode, Function.identity()));
+            Set<String> missingCodes = new LinkedHashSet<>(itemCodes);
+            missingCodes.removeAll(itemsByCode.keySet());
+            if (!missingCodes.isEmpty()) {
+                throw new IllegalArgumentException("Received items not found: " + missingCodes.stream()
+                        .map(code -> "'" + code + "'")
+                        .collect(Collectors.joining(", ")) + ".");
+            }
+        }
+
         // Add items to GRN using addItem method
+        LocalDateTime receivedAt = LocalDateTime.now();
         for (GRNItemDTO row : dto.getItems()) {
             GoodsReceivingItem item = new GoodsReceivingItem();
             item.setDescription(row.getDescription());
             item.setQuantity(row.getQuantity());
             item.setUnit(row.getUnit());
+            if (row.getItemCode() != null) {
+                InventoryItem inventoryItem = itemsByCode.get(row.getItemCode());
+                inventoryItem.setCurrentStockQuantity(inventoryItem.getCurrentStockQuantity().add(BigDecimal.valueOf(row.getQuantity())));
+                // The goods this item was waiting for have arrived, the reorder engine may raise it again
+                inventoryItem.setPendingPurchaseRequest(false);
+                inventoryItem.setLastUpdatedByUser(createdBy);
+                inventoryItem.setLastUpdatedAt(receivedAt);
+                item.setInventoryItem(inventoryItem);
+            }
             grn.addItem(item); // Using addItem ensures the proper association
         }
 
         // Save the GRN
-        return grnRepository.save(grn);
+        GRN saved = grnRepository.save(grn);
+        stockLedgerService.recordReceipts(saved.getItems(), createdBy.getId(), receivedAt);
+        reorderService.releaseItems(pr);
+        return saved;
     }
 
 
@@ -1,41 +1,64 @@
 package com.irrigation.erp.backend.service;
 
+import com.irrigation.erp.backend.dto.CursorPageResponseDTO;
+import com.irrigation.erp.backend.dto.DistributionQuantityDTO;
+import com.irrigation.erp.backend.dto.InventoryIssueResponseDTO;
 import com.irrigation.erp.backend.dto.OtherDistributionsResponseDTO;
 import com.irrigation.erp.backend.model.InventoryIssue;
 import com.irrigation.erp.backend.model.InventoryItem;
 import com.irrigation.erp.backend.repository.InventoryIssueRepository;
 import com.irrigation.erp.backend.repository.InventoryItemRepository;
+import com.irrigation.erp.backend.util.CursorUtil;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class InventoryIssueService {
 
     private final InventoryIssueRepository inventoryIssueRepository;
     private final InventoryItemRepository inventoryItemRepository;
+    private final MaterialDistributionRollupService materialDistributionRollupService;
     public static final String ITEM_NOT_FOUND = "' not found.";
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    static final LocalDate EARLIEST_ISSUE_DATE = LocalDate.of(1900, 1, 1);
+    static final LocalDate LATEST_ISSUE_DATE = LocalDate.of(9999, 12, 31);
 
     public InventoryIssueService(InventoryIssueRepository inventoryIssueRepository,
-                                 InventoryItemRepository inventoryItemRepository) {
+                                 InventoryItemRepository inventoryItemRepository,
+                                 MaterialDistributionRollupService materialDistributionRollupService) {
         this.inventoryIssueRepository = inventoryIssueRepository;
         this.inventoryItemRepository = inventoryItemRepository;
+        this.materialDistributionRollupService = materialDistributionRollupService;
     }
 
     // ----------------- CRUD METHODS -----------------
 
+    @Transactional
     public InventoryIssue createIssue(InventoryIssue issue) {
-        return inventoryIssueRepository.save(issue);
+        InventoryIssue saved = inventoryIssueRepository.save(issue);
+        materialDistributionRollupService.recordIssues(List.of(saved));
+        return saved;
     }
 
     public Optional<InventoryIssue> getIssueById(Long id) {
         return inventoryIssueRepository.findById(id);
     }
 
+    @Transactional
     public InventoryIssue updateIssue(Long id, InventoryIssue issueDetails) {
         return inventoryIssueRepository.findById(id).map(existing -> {
+            // Take the old values out of the monthly rollup, the edited ones go back in below
+            materialDistributionRollupService.reverseIssues(List.of(existing));
+
             // Update allowed fields
             existing.setIssuedAt(issueDetails.getIssuedAt());
             existing.setIssuedQuantity(issueDetails.getIssuedQuantity());
@@ -60,139 +83,136 @@ public class InventoryIssueService {
                 existing.setRequestLineItem(issueDetails.getRequestLineItem());
             }
 
-            return inventoryIssueRepository.save(existing);
+            InventoryIssue saved = inventoryIssueRepository.save(existing);
+            materialDistributionRollupService.recordIssues(List.of(saved));
+            return saved;
         }).orElseThrow(() -> new IllegalArgumentException("Inventory Issue with ID " + id + ITEM_NOT_FOUND));
     }
 
+    @Transactional
     public void deleteIssue(Long id) {
-        if (!inventoryIssueRepository.existsById(id)) {
-            throw new IllegalArgumentException("Inventory Issue with ID " + id + ITEM_NOT_FOUND);
-        }
-        inventoryIssueRepository.deleteById(id);
+        InventoryIssue issue = inventoryIssueRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Inventory Issue with ID " + id + ITEM_NOT_FOUND));
+        materialDistributionRollupService.reverseIssues(List.of(issue));
+        inventoryIssueRepository.delete(issue);
     }
 
     // Existing methods
-    public List<InventoryIssue> getIssueHistoryByItemId(Long itemId) {
-        InventoryItem item = inventoryItemRepository.findById(itemId)
-                .orElseThrow(() -> new IllegalArgumentException("Inventory item with ID " + itemId + ITEM_NOT_FOUND));
-        return inventoryIssueRepository.findByIssuedItemOrderByIssuedAtDesc(item);
+    public List<InventoryIssueResponseDTO> getIssueHistoryByItemId(Long itemId) {
+        if (!inventoryItemRepository.existsById(itemId)) {
+            throw new IllegalArgumentException("Inventory item with ID " + itemId + ITEM_NOT_FOUND);
+        }
+        return inventoryIssueRepository.findIssueDTOsByItemId(itemId);
     }
 
-    public List<InventoryIssue> getIssueHistoryByItemCode(String itemCode) {
+    public List<InventoryIssueResponseDTO> getIssueHistoryByItemCode(String itemCode) {
         InventoryItem item = inventoryItemRepository.findByItemCode(itemCode)
                 .orElseThrow(() -> new IllegalArgumentException("Inventory item with code '" + itemCode + ITEM_NOT_FOUND));
-        return inventoryIssueRepository.findByIssuedItemOrderByIssuedAtDesc(item);
+        return inventoryIssueRepository.findIssueDTOsByItemId(item.getId());
     }
 
-    public List<InventoryIssue> getAllIssues() {
-        return inventoryIssueRepository.findAllByOrderByIssuedAtDesc();
+    public List<InventoryIssueResponseDTO> getAllIssues() {
+        return inventoryIssueRepository.findAllIssueDTOs();
     }
 
-    public List<InventoryIssue> getIssuesByRequestId(Long requestId) {
-        return inventoryIssueRepository.findByInventoryRequestIdOrderByIssuedAtDesc(requestId);
+    public List<InventoryIssueResponseDTO> getIssuesByRequestId(Long requestId) {
+        return inventoryIssueRepository.findIssueDTOsByRequestId(requestId);
     }
 
     // NEW METHOD: Get issues by user ID (issued to user)
-    public List<InventoryIssue> getIssuesByUserId(Long userId) {
-    List<InventoryIssue> issues = inventoryIssueRepository.findByIssuedToUserIdOrderByIssuedAtDesc(userId);
-
-    // Force fetch nested lazy objects to avoid nulls in DTO
-    for (InventoryIssue issue : issues) {
-        if (issue.getIssuedItem() != null) {
-            issue.getIssuedItem().getItemName();  // access to force load
-            issue.getIssuedItem().getItemCode();
-        }
-        if (issue.getIssuedByUser() != null) {
-            issue.getIssuedByUser().getUsername();
-        }
-        if (issue.getIssuedToUser() != null) {
-            issue.getIssuedToUser().getUsername();
-        }
-        if (issue.getInventoryRequest() != null) {
-            issue.getInventoryRequest().getId();
-        }
-        if (issue.getRequestLineItem() != null) {
-            issue.getRequestLineItem().getRequestedQuantity();
-        }
+    public List<InventoryIssueResponseDTO> getIssuesByUserId(Long userId) {
+        return inventoryIssueRepository.findIssueDTOsByIssuedToUserId(userId);
     }
 
-    return issues;
-}
-
-
     // ALTERNATIVE METHOD: Get issues by user ID (issued by user)
-    public List<InventoryIssue> getIssuesByIssuedByUserId(Long userId) {
-        return inventoryIssueRepository.findByIssuedByUserIdOrderByIssuedAtDesc(userId);
+    public List<InventoryIssueResponseDTO> getIssuesByIssuedByUserId(Long userId) {
+        return inventoryIssueRepository.findIssueDTOsByIssuedByUserId(userId);
     }
 
-    // COMBINED METHOD: Get all issues related to a user (both issued to and issued by)
-    public List<InventoryIssue> getAllIssuesRelatedToUser(Long userId) {
-        List<InventoryIssue> issuedToUser = inventoryIssueRepository.findByIssuedToUserIdOrderByIssuedAtDesc(userId);
-        List<InventoryIssue> issuedByUser = inventoryIssueRepository.findByIssuedByUserIdOrderByIssuedAtDesc(userId);
-
-        // Combine and remove duplicates
-        Set<InventoryIssue> combinedIssues = new HashSet<>(issuedToUser);
-        combinedIssues.addAll(issuedByUser);
+    // COMBINED METHOD: Issues related to a user (issued to or issued by), newest first, one keyset page at a time
+    public CursorPageResponseDTO<InventoryIssueResponseDTO> getIssuesRelatedToUserPage(Long userId, String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        // cursor = issued at and id of the last row on the previous page, the first page starts above any real row
+        LocalDateTime afterIssuedAt = LATEST_ISSUE_DATE.atStartOfDay();
+        long afterId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] after = CursorUtil.decode(cursor, 2);
+            try {
+                afterIssuedAt = LocalDateTime.parse(after[0]);
+                afterId = Long.parseLong(after[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException(CursorUtil.INVALID_CURSOR);
+            }
+        }
 
-        // Convert back to list and sort by issued date (descending)
-        return combinedIssues.stream()
-                .sorted((a, b) -> b.getIssuedAt().compareTo(a.getIssuedAt()))
-                .toList();
+        // One extra id tells us whether another page follows
+        List<Long> ids = inventoryIssueRepository.findRelatedToUserIdsAfter(userId, afterIssuedAt, afterId, pageSize + 1);
+        boolean hasNext = ids.size() > pageSize;
+        List<InventoryIssueResponseDTO> issues = ids.isEmpty()
+                ? List.of()
+                : inventoryIssueRepository.findIssueDTOsByIdIn(hasNext ? ids.subList(0, pageSize) : ids);
+
+        String nextCursor = null;
+        if (hasNext) {
+            InventoryIssueResponseDTO last = issues.get(issues.size() - 1);
+            nextCursor = CursorUtil.encode(last.getIssuedAt().toString(), String.valueOf(last.getId()));
+        }
+        return new CursorPageResponseDTO<>(issues, nextCursor, hasNext, pageSize);
     }
 
-    // NEW METHOD: Get other distributions for a specific user
-    public OtherDistributionsResponseDTO getOtherDistributionsByUserId(Long userId) {
-        // Get all Non-Material issues for the user
-        List<InventoryIssue> issues = inventoryIssueRepository.findNonMaterialIssuesByIssuedToUserId(userId);
-
-        // Get all distinct Non-Material item names
-        List<String> itemHeaders = inventoryIssueRepository.findDistinctNonMaterialItemNames();
-
-        // Group issues by date and request ID to create distribution records
-        Map<String, List<InventoryIssue>> groupedByDateAndRequest = issues.stream()
-                .collect(Collectors.groupingBy(issue ->
-                        issue.getIssuedAt().toLocalDate().toString() + "_" + issue.getInventoryRequest().getId()
-                ));
-
-        // Convert to distribution records
-        List<OtherDistributionsResponseDTO.DistributionRecord> distributions = new ArrayList<>();
-
-        for (Map.Entry<String, List<InventoryIssue>> entry : groupedByDateAndRequest.entrySet()) {
-            List<InventoryIssue> issuesGroup = entry.getValue();
-            if (!issuesGroup.isEmpty()) {
-                InventoryIssue firstIssue = issuesGroup.get(0);
-
-                // Create distribution record
-                OtherDistributionsResponseDTO.DistributionRecord recorder =
-                        new OtherDistributionsResponseDTO.DistributionRecord();
-
-                recorder.setDate(firstIssue.getIssuedAt().toLocalDate());
-                recorder.setIssueNumber("REQ-" + firstIssue.getInventoryRequest().getId());
-
-                // Create item quantities map
-                Map<String, Integer> itemQuantities = new HashMap<>();
+    // NEW METHOD: Get other distributions for a specific user, one page of (date, request) groups at a time
+    public OtherDistributionsResponseDTO getOtherDistributionsByUserId(Long userId, LocalDate from, LocalDate to,
+                                                                       Integer page, Integer size) {
+        int pageNumber = page == null ? 0 : page;
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        if (pageNumber < 0) {
+            throw new IllegalArgumentException("Page must not be negative.");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'.");
+        }
 
-                // Initialize all items with 0
-                for (String itemName : itemHeaders) {
-                    itemQuantities.put(itemName, 0);
-                }
+        // Inclusive date range, turned into a half-open timestamp range for the issued_at comparisons
+        LocalDateTime fromTime = (from == null ? EARLIEST_ISSUE_DATE : from).atStartOfDay();
+        LocalDateTime toTime = (to == null ? LATEST_ISSUE_DATE : to.plusDays(1)).atStartOfDay();
+
+        Slice<DistributionQuantityDTO> groups = inventoryIssueRepository.findNonMaterialDistributionGroups(
+                userId, fromTime, toTime, PageRequest.of(pageNumber, pageSize));
+
+        // Keep page order, quantities are filled in from the aggregate below
+        Map<String, OtherDistributionsResponseDTO.DistributionRecord> recordsByGroup = new LinkedHashMap<>();
+        Set<Long> requestIds = new HashSet<>();
+        // Column headers are the items issued on this page, in name order
+        Set<String> itemHeaders = new TreeSet<>();
+        for (DistributionQuantityDTO group : groups) {
+            recordsByGroup.put(distributionKey(group), new OtherDistributionsResponseDTO.DistributionRecord(
+                    group.getDate(), "REQ-" + group.getRequestId(), new HashMap<>()));
+            requestIds.add(group.getRequestId());
+        }
 
-                // Set actual quantities
-                for (InventoryIssue issue : issuesGroup) {
-                    String itemName = issue.getIssuedItem().getItemName();
-                    int currentQuantity = itemQuantities.getOrDefault(itemName, 0);
-                    int issuedQuantity = issue.getIssuedQuantity().intValue();
-                    itemQuantities.put(itemName, currentQuantity + issuedQuantity);
+        if (!requestIds.isEmpty()) {
+            // Narrow the aggregate to the dates on this page, the group key check drops any overlap
+            List<DistributionQuantityDTO> content = groups.getContent();
+            LocalDateTime pageFrom = content.get(content.size() - 1).getDate().atStartOfDay();
+            LocalDateTime pageTo = content.get(0).getDate().plusDays(1).atStartOfDay();
+            List<DistributionQuantityDTO> quantities = inventoryIssueRepository.sumNonMaterialQuantities(
+                    userId, pageFrom.isAfter(fromTime) ? pageFrom : fromTime, pageTo.isBefore(toTime) ? pageTo : toTime, requestIds);
+
+            for (DistributionQuantityDTO quantity : quantities) {
+                OtherDistributionsResponseDTO.DistributionRecord record = recordsByGroup.get(distributionKey(quantity));
+                if (record != null) {
+                    itemHeaders.add(quantity.getItemName());
+                    record.getItemQuantities().merge(quantity.getItemName(), quantity.getQuantity().intValue(), Integer::sum);
                 }
-
-                recorder.setItemQuantities(itemQuantities);
-                distributions.add(recorder);
             }
         }
 
-        // Sort distributions by date (most recent first)
-        distributions.sort((a, b) -> b.getDate().compareTo(a.getDate()));
+        return new OtherDistributionsResponseDTO(new ArrayList<>(itemHeaders), new ArrayList<>(recordsByGroup.values()),
+                pageNumber, pageSize, groups.hasNext());
+    }
 
-        return new OtherDistributionsResponseDTO(itemHeaders, distributions);
+    private static String distributionKey(DistributionQuantityDTO row) {
+        return row.getDate() + "_" + row.getRequestId();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package com.irrigation.erp.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+
+// Business counters next to the technical timers. Counts are applied after commit so rolled back
+// issues and adjustments never show up; per-minute rates come from rate() over the counters.
+@Component
+public class InventoryMetrics {
+
+    static final String ISSUES = "inventory.issues";
+    static final String STOCK_ADJUSTMENTS = "inventory.stock.adjustments";
+
+    private final Counter singleIssues;
+    private final Counter batchIssues;
+    private final Counter stockIncreases;
+    private final Counter stockDecreases;
+
+    public InventoryMetrics(MeterRegistry meterRegistry) {
+        this.singleIssues = Counter.builder(ISSUES).description("Issued request lines")
+                .tag("mode", "single").register(meterRegistry);
+        this.batchIssues = Counter.builder(ISSUES).description("Issued request lines")
+                .tag("mode", "batch").register(meterRegistry);
+        this.stockIncreases = Counter.builder(STOCK_ADJUSTMENTS).description("Manual stock adjustments")
+                .tag("direction", "increase").register(meterRegistry);
+        this.stockDecreases = Counter.builder(STOCK_ADJUSTMENTS).description("Manual stock adjustments")
+                .tag("direction", "decrease").register(meterRegistry);
+    }
+
+    public void issued(int lines, boolean batch) {
+        Counter counter = batch ? batchIssues : singleIssues;
+        afterCommit(() -> counter.increment(lines));
+    }
+
+    public void stockAdjusted(BigDecimal quantityChange) {
+        Counter counter = quantityChange.signum() < 0 ? stockDecreases : stockIncreases;
+        afterCommit(counter::increment);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
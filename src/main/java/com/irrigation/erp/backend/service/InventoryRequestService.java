@@ -1,20 +1,31 @@
 package com.irrigation.erp.backend.service;
 
+import com.irrigation.erp.backend.config.CacheConfig;
 import com.irrigation.erp.backend.dto.*;
 import com.irrigation.erp.backend.enums.RequestLineItemStatus;
 import com.irrigation.erp.backend.enums.RequestStatus;
+import com.irrigation.erp.backend.event.RequestCompleted;
+import com.irrigation.erp.backend.event.StockIssued;
 import com.irrigation.erp.backend.model.*;
 import com.irrigation.erp.backend.repository.*;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +36,12 @@ public class InventoryRequestService {
     private final InventoryItemRepository inventoryItemRepository;
     private final UserRepository userRepository;
     private final InventoryIssueRepository inventoryIssueRepository;
+    private final EntityManager entityManager;
+    private final MaterialDistributionRollupService materialDistributionRollupService;
+    private final MaterialDistributionMonthlyRepository materialDistributionMonthlyRepository;
+    private final InventoryMetrics inventoryMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockLedgerService stockLedgerService;
     public static final String NOT_FOUND = "' not found.";
     public static final String INVENTORY_REQUEST_LINE_ITEM_WITH_ID = "Inventory Request Line Item with ID ";
     public static final String STORE_KEEPER_USER_WITH_ID = "Store keeper user with ID '";
@@ -33,12 +50,24 @@ public class InventoryRequestService {
                                    InventoryRequestLineItemRepository inventoryRequestLineItemRepository,
                                    InventoryItemRepository inventoryItemRepository,
                                    UserRepository userRepository,
-                                   InventoryIssueRepository inventoryIssueRepository) {
+                                   InventoryIssueRepository inventoryIssueRepository,
+                                   EntityManager entityManager,
+                                   MaterialDistributionRollupService materialDistributionRollupService,
+                                   MaterialDistributionMonthlyRepository materialDistributionMonthlyRepository,
+                                   InventoryMetrics inventoryMetrics,
+                                   ApplicationEventPublisher eventPublisher,
+                                   StockLedgerService stockLedgerService) {
         this.inventoryRequestRepository = inventoryRequestRepository;
         this.inventoryRequestLineItemRepository = inventoryRequestLineItemRepository;
         this.inventoryItemRepository = inventoryItemRepository;
         this.userRepository = userRepository;
         this.inventoryIssueRepository = inventoryIssueRepository;
+        this.entityManager = entityManager;
+        this.materialDistributionRollupService = materialDistributionRollupService;
+        this.materialDistributionMonthlyRepository = materialDistributionMonthlyRepository;
+        this.inventoryMetrics = inventoryMetrics;
+        this.eventPublisher = eventPublisher;
+        this.stockLedgerService = stockLedgerService;
     }
 
     @Transactional
@@ -50,6 +79,34 @@ public class InventoryRequestService {
             throw new IllegalArgumentException("Request must contain at least one item.");
         }
 
+        // Resolve every code with one query and report all bad lines together
+        Set<String> itemCodes = requestDTO.getItems().stream()
+                .map(InventoryRequestLineItemCreateDTO::getItemCode)
+                .collect(Collectors.toSet());
+        Map<String, InventoryItem> itemsByCode = inventoryItemRepository.findByItemCodeIn(itemCodes).stream()
+                .collect(Collectors.toMap(InventoryItem::getItemCode, Function.identity()));
+
+        Set<String> missingCodes = new LinkedHashSet<>();
+        Set<String> nonPositiveCodes = new LinkedHashSet<>();
+        for (InventoryRequestLineItemCreateDTO lineItemDTO : requestDTO.getItems()) {
+            if (!itemsByCode.containsKey(lineItemDTO.getItemCode())) {
+                missingCodes.add(lineItemDTO.getItemCode());
+            }
+            if (lineItemDTO.getRequestedQuantity().compareTo(BigDecimal.ZERO) <= 0) {
+                nonPositiveCodes.add(lineItemDTO.getItemCode());
+            }
+        }
+        List<String> errors = new ArrayList<>();
+        if (!missingCodes.isEmpty()) {
+            errors.add("Requested items not found: " + quoted(missingCodes) + ".");
+        }
+        if (!nonPositiveCodes.isEmpty()) {
+            errors.add("Requested quantity must be positive for items: " + quoted(nonPositiveCodes) + ".");
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join(" ", errors));
+        }
+
         InventoryRequest newRequest = new InventoryRequest();
         newRequest.setRequester(requester);
         newRequest.setPurpose(requestDTO.getPurpose());
@@ -57,15 +114,8 @@ public class InventoryRequestService {
         newRequest.setRequestedAt(LocalDateTime.now());
 
         for (InventoryRequestLineItemCreateDTO lineItemDTO : requestDTO.getItems()) {
-            InventoryItem requestedItem = inventoryItemRepository.findByItemCode(lineItemDTO.getItemCode())
-                    .orElseThrow(() -> new IllegalArgumentException("Requested item with code '" + lineItemDTO.getItemCode() + NOT_FOUND));
-
-            if (lineItemDTO.getRequestedQuantity().compareTo(BigDecimal.ZERO) <= 0) {
-                throw new IllegalArgumentException("Requested quantity must be positive for item '" + lineItemDTO.getItemCode() + "'.");
-            }
-
             InventoryRequestLineItem lineItem = new InventoryRequestLineItem();
-            lineItem.setRequestedItem(requestedItem);
+            lineItem.setRequestedItem(itemsByCode.get(lineItemDTO.getItemCode()));
             lineItem.setRequestedQuantity(lineItemDTO.getRequestedQuantity());
             lineItem.setStatus(RequestLineItemStatus.PENDING);
             newRequest.addLineItem(lineItem);
@@ -74,6 +124,12 @@ public class InventoryRequestService {
         return inventoryRequestRepository.save(newRequest);
     }
 
+    private static String quoted(Collection<String> itemCodes) {
+        return itemCodes.stream()
+                .map(code -> "'" + code + "'")
+                .collect(Collectors.joining(", "));
+    }
+
     public List<InventoryRequest> getAllPendingInventoryRequestsWithLineItems() {
         return inventoryRequestRepository.findByStatus(RequestStatus.PENDING);
     }
@@ -87,6 +143,7 @@ public class InventoryRequestService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORY_COUNTS, allEntries = true)
     public InventoryIssue issueInventoryItem(Long inventoryRequestLineItemId, IssueRequestDTO issueDTO) {
         InventoryRequestLineItem requestLineItem = inventoryRequestLineItemRepository.findById(inventoryRequestLineItemId)
                 .orElseThrow(() -> new IllegalArgumentException(INVENTORY_REQUEST_LINE_ITEM_WITH_ID + inventoryRequestLineItemId + NOT_FOUND));
@@ -111,17 +168,11 @@ public class InventoryRequestService {
             throw new IllegalArgumentException("Issued quantity must be positive and not exceed the remaining requested quantity (" + remainingQuantity + ").");
         }
 
-        if (itemToIssue.getCurrentStockQuantity().compareTo(quantityToIssue) < 0) {
-            throw new IllegalArgumentException("Insufficient stock for item '" + itemToIssue.getItemCode() + "'. Available: " + itemToIssue.getCurrentStockQuantity() + ", Requested: " + quantityToIssue);
-        }
-
-        itemToIssue.setCurrentStockQuantity(itemToIssue.getCurrentStockQuantity().subtract(quantityToIssue));
-        itemToIssue.setLastUpdatedByUser(storeKeeper);
-        itemToIssue.setLastUpdatedAt(LocalDateTime.now());
-        inventoryItemRepository.save(itemToIssue);
+        deductStock(itemToIssue, quantityToIssue, storeKeeper);
 
         InventoryIssue issue = new InventoryIssue();
         issue.setRequestLineItem(requestLineItem);
+        issue.setInventoryRequest(requestLineItem.getRequest());
         issue.setIssuedItem(itemToIssue);
         issue.setIssuedQuantity(quantityToIssue);
         issue.setIssuedByUser(storeKeeper);
@@ -136,6 +187,10 @@ public class InventoryRequestService {
         issue.setNotes(issueDTO.getIssueNotes());
 
         inventoryIssueRepository.save(issue);
+        materialDistributionRollupService.recordIssues(List.of(issue));
+        stockLedgerService.recordIssues(List.of(issue));
+        inventoryMetrics.issued(1, false);
+        publishIssued(issue, itemToIssue.getCurrentStockQuantity());
 
 
         if ((alreadyIssuedQuantity.add(quantityToIssue)).compareTo(requestedQuantity) >= 0) {
@@ -151,6 +206,7 @@ public class InventoryRequestService {
     }
     //Branch Issue Methods
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORY_COUNTS, allEntries = true)
     public InventoryRequest issueBatchItems(BatchIssueRequestDTO issueDTO) {
 
         if (issueDTO.getItemsToIssue() == null || issueDTO.getItemsToIssue().isEmpty()) {
@@ -158,36 +214,53 @@ public class InventoryRequestService {
         }
 
 
-        // This is now safe as we've checked for an empty list
-        Long parentRequestId = issueDTO.getItemsToIssue().get(0).getInventoryRequestLineItemId();
-        InventoryRequest parentRequest = inventoryRequestLineItemRepository.findById(parentRequestId)
-                .map(InventoryRequestLineItem::getRequest)
-                .orElseThrow(() -> new IllegalArgumentException("Parent Inventory Request not found for batch."));
+        List<Long> lineItemIds = issueDTO.getItemsToIssue().stream()
+                .map(BatchIssueItemDTO::getInventoryRequestLineItemId)
+                .toList();
+        Map<Long, InventoryRequestLineItem> lineItemsById = inventoryRequestLineItemRepository.findAllWithRequestByIdIn(lineItemIds).stream()
+                .collect(Collectors.toMap(InventoryRequestLineItem::getId, Function.identity()));
+        for (Long lineItemId : lineItemIds) {
+            if (!lineItemsById.containsKey(lineItemId)) {
+                throw new IllegalArgumentException(INVENTORY_REQUEST_LINE_ITEM_WITH_ID + lineItemId + NOT_FOUND);
+            }
+        }
 
 
-        Set<Long> parentRequestIds = issueDTO.getItemsToIssue().stream()
-                .map(item -> inventoryRequestLineItemRepository.findById(item.getInventoryRequestLineItemId()).get().getRequest().getId())
+        Set<Long> parentRequestIds = lineItemsById.values().stream()
+                .map(lineItem -> lineItem.getRequest().getId())
                 .collect(Collectors.toSet());
         if (parentRequestIds.size() > 1) {
             throw new IllegalArgumentException("All items in a batch must belong to the same inventory request.");
         }
+        InventoryRequest parentRequest = lineItemsById.get(lineItemIds.get(0)).getRequest();
 
 
         User storeKeeper = userRepository.findById(issueDTO.getIssuedByUserId())
                 .orElseThrow(() -> new IllegalArgumentException(STORE_KEEPER_USER_WITH_ID + issueDTO.getIssuedByUserId() + NOT_FOUND));
 
+        // Lock every item in the batch up front; stock is then checked and deducted in memory
+        // and flushed together with the issues and line statuses as JDBC batches
+        Set<Long> itemIds = lineItemsById.values().stream()
+                .map(lineItem -> lineItem.getRequestedItem().getId())
+                .collect(Collectors.toSet());
+        Map<Long, InventoryItem> itemsById = inventoryItemRepository.findAllByIdInForUpdate(itemIds).stream()
+                .collect(Collectors.toMap(InventoryItem::getId, Function.identity()));
 
+        LocalDateTime now = LocalDateTime.now();
+        List<InventoryIssue> issues = new ArrayList<>();
+        // Stock left after each line, an item can appear on more than one line of the batch
+        List<BigDecimal> stockAfterIssues = new ArrayList<>();
         for (BatchIssueItemDTO itemDTO : issueDTO.getItemsToIssue()) {
-            InventoryRequestLineItem requestLineItem = inventoryRequestLineItemRepository.findById(itemDTO.getInventoryRequestLineItemId())
-                    .orElseThrow(() -> new IllegalArgumentException(INVENTORY_REQUEST_LINE_ITEM_WITH_ID + itemDTO.getInventoryRequestLineItemId() + NOT_FOUND));
+            InventoryRequestLineItem requestLineItem = lineItemsById.get(itemDTO.getInventoryRequestLineItemId());
 
             // Deduct stock and create issue record
-            InventoryItem inventoryItem = requestLineItem.getRequestedItem();
+            InventoryItem inventoryItem = itemsById.get(requestLineItem.getRequestedItem().getId());
             if (inventoryItem.getCurrentStockQuantity().compareTo(itemDTO.getIssuedQuantity()) < 0) {
-                throw new IllegalArgumentException("Insufficient stock for item: " + inventoryItem.getItemName());
+                throw new IllegalArgumentException("Insufficient stock for item '" + inventoryItem.getItemCode() + "'. Available: " + inventoryItem.getCurrentStockQuantity() + ", Requested: " + itemDTO.getIssuedQuantity());
             }
             inventoryItem.setCurrentStockQuantity(inventoryItem.getCurrentStockQuantity().subtract(itemDTO.getIssuedQuantity()));
-            inventoryItemRepository.save(inventoryItem);
+            inventoryItem.setLastUpdatedByUser(storeKeeper);
+            inventoryItem.setLastUpdatedAt(now);
 
             InventoryIssue issue = new InventoryIssue();
             issue.setRequestLineItem(requestLineItem);
@@ -195,7 +268,7 @@ public class InventoryRequestService {
             issue.setIssuedQuantity(itemDTO.getIssuedQuantity());
             issue.setIssuedByUser(storeKeeper);
             issue.setIssuedToUser(parentRequest.getRequester());
-            issue.setIssuedAt(LocalDateTime.now());
+            issue.setIssuedAt(now);
             issue.setInventoryRequest(parentRequest);
             issue.setNotes(issueDTO.getIssueNotes());
 
@@ -203,11 +276,17 @@ public class InventoryRequestService {
             BigDecimal issuedQuantityBd = itemDTO.getIssuedQuantity();
             BigDecimal calculatedItemValue = unitPrice.multiply(issuedQuantityBd);
             issue.setItemValue(calculatedItemValue);
-
-            inventoryIssueRepository.save(issue);
+            issues.add(issue);
+            stockAfterIssues.add(inventoryItem.getCurrentStockQuantity());
 
             requestLineItem.setStatus(RequestLineItemStatus.ISSUED);
-            inventoryRequestLineItemRepository.save(requestLineItem);
+        }
+        inventoryIssueRepository.saveAll(issues);
+        materialDistributionRollupService.recordIssues(issues);
+        stockLedgerService.recordIssues(issues);
+        inventoryMetrics.issued(issues.size(), true);
+        for (int i = 0; i < issues.size(); i++) {
+            publishIssued(issues.get(i), stockAfterIssues.get(i));
         }
 
 
@@ -216,6 +295,23 @@ public class InventoryRequestService {
         return parentRequest;
     }
 
+    // Delivered to the event consumers once the issuing transaction has committed
+    private void publishIssued(InventoryIssue issue, BigDecimal stockAfter) {
+        InventoryItem item = issue.getIssuedItem();
+        eventPublisher.publishEvent(new StockIssued(issue.getId(), issue.getInventoryRequest().getId(),
+                issue.getRequestLineItem().getId(), item.getId(), item.getItemCode(), issue.getIssuedQuantity(),
+                stockAfter, item.getMinimumStockLevel(), issue.getIssuedByUser().getId(), issue.getIssuedAt()));
+    }
+
+    // The conditional UPDATE is the stock check, so two store keepers can never both take the last units
+    private void deductStock(InventoryItem item, BigDecimal quantity, User storeKeeper) {
+        int updated = inventoryItemRepository.deductStock(item.getId(), quantity, storeKeeper, LocalDateTime.now());
+        entityManager.refresh(item);
+        if (updated == 0) {
+            throw new IllegalArgumentException("Insufficient stock for item '" + item.getItemCode() + "'. Available: " + item.getCurrentStockQuantity() + ", Requested: " + quantity);
+        }
+    }
+
     @Transactional
     public InventoryRequestLineItem markRequestLineItemNoStock(Long inventoryRequestLineItemId, NoStockRequestDTO noStockDTO) {
         InventoryRequestLineItem requestLineItem = inventoryRequestLineItemRepository.findById(inventoryRequestLineItemId)
@@ -253,10 +349,15 @@ public class InventoryRequestService {
         if (hasUnprocessedItems) {
             parentRequest.setStatus(RequestStatus.PENDING);
         } else {
+            boolean completedNow = parentRequest.getStatus() != RequestStatus.ISSUED;
 
             parentRequest.setStatus(RequestStatus.ISSUED);
             parentRequest.setProcessedBy(processedByUser);
             parentRequest.setProcessedAt(LocalDateTime.now());
+            if (completedNow) {
+                eventPublisher.publishEvent(new RequestCompleted(parentRequest.getId(), parentRequest.getRequester().getId(),
+                        processedByUser.getId(), parentRequest.getProcessedAt()));
+            }
         }
 
         inventoryRequestRepository.save(parentRequest);
@@ -265,19 +366,13 @@ public class InventoryRequestService {
 
     public List<MaterialDistributionTableDTO> getMaterialDistributionTable(Long userId) {
         LocalDate now = LocalDate.now();
-        int currentMonth = now.getMonthValue();
-        int currentYear = now.getYear();
-
-        // Calculate previous month
-        int previousMonth = currentMonth == 1 ? 12 : currentMonth - 1;
-        int previousMonthYear = currentMonth == 1 ? currentYear - 1 : currentYear;
+        int currentMonth = MaterialDistributionRollupService.toIssueMonth(now);
+        int previousMonth = MaterialDistributionRollupService.toIssueMonth(now.minusMonths(1));
 
-        return inventoryIssueRepository.getMaterialDistributionTable(
+        return materialDistributionMonthlyRepository.getMaterialDistributionTable(
                 userId,
                 currentMonth,
-                currentYear,
-                previousMonth,
-                previousMonthYear
+                previousMonth
         );
     }
 }
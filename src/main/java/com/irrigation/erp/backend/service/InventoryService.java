@@ -1,8 +1,12 @@
 package com.irrigation.erp.backend.service;
 
+import com.irrigation.erp.backend.config.CacheConfig;
+import com.irrigation.erp.backend.dto.CursorPageResponseDTO;
 import com.irrigation.erp.backend.dto.InventoryItemCreateRequestDTO;
 import com.irrigation.erp.backend.dto.InventoryItemResponseDTO;
-import com.irrigation.erp.backend.enums.StockStatus;
+import com.irrigation.erp.backend.dto.StockLevelAtDTO;
+import com.irrigation.erp.backend.event.ItemCreated;
+import com.irrigation.erp.backend.event.StockAdjusted;
 import com.irrigation.erp.backend.model.InventoryItem;
 import com.irrigation.erp.backend.model.ItemCategory;
 import com.irrigation.erp.backend.model.ItemType;
@@ -11,15 +15,27 @@ import com.irrigation.erp.backend.repository.InventoryItemRepository;
 import com.irrigation.erp.backend.repository.ItemCategoryRepository;
 import com.irrigation.erp.backend.repository.ItemTypeRepository;
 import com.irrigation.erp.backend.repository.UserRepository;
+import com.irrigation.erp.backend.util.CursorUtil;
+import com.irrigation.erp.backend.util.SearchTermUtil;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 
 import jakarta.validation.constraints.NotNull;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -28,23 +44,40 @@ public class InventoryService {
     private final ItemCategoryRepository itemCategoryRepository;
     private final ItemTypeRepository itemTypeRepository;
     private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final InventoryMetrics inventoryMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockLedgerService stockLedgerService;
     public static final String NOT_FOUND = "' not found.";
     public static final String ITEM_CATEGORY = "Item Category '";
     public static final String ITEM_WITH_CODE = "Item with code '";
     public static final String USER_WITH_ID = "User with id '";
+    public static final String SORT_BY_ITEM_CODE = "itemCode";
+    public static final String SORT_BY_ID = "id";
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
 
 
     public InventoryService(InventoryItemRepository inventoryItemRepository,
                             ItemCategoryRepository itemCategoryRepository,
                             ItemTypeRepository itemTypeRepository,
-                            UserRepository userRepository) {
+                            UserRepository userRepository,
+                            EntityManager entityManager,
+                            InventoryMetrics inventoryMetrics,
+                            ApplicationEventPublisher eventPublisher,
+                            StockLedgerService stockLedgerService) {
         this.inventoryItemRepository = inventoryItemRepository;
         this.itemCategoryRepository = itemCategoryRepository;
         this.itemTypeRepository = itemTypeRepository;
         this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.inventoryMetrics = inventoryMetrics;
+        this.eventPublisher = eventPublisher;
+        this.stockLedgerService = stockLedgerService;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORY_COUNTS, allEntries = true)
     public InventoryItem createInventoryItem(InventoryItemCreateRequestDTO requestDTO) {
 
         //check for unique item code
@@ -82,11 +115,18 @@ public class InventoryService {
         newItem.setIsActive(true);
 
         //save to database
-        return inventoryItemRepository.save(newItem);
+        InventoryItem savedItem = inventoryItemRepository.save(newItem);
+        stockLedgerService.recordOpening(savedItem.getId(), savedItem.getCurrentStockQuantity(), creatingUser.getId(),
+                savedItem.getLastUpdatedAt());
+        eventPublisher.publishEvent(new ItemCreated(savedItem.getId(), savedItem.getItemCode(), savedItem.getItemName(),
+                itemCategory.getId(), savedItem.getCurrentStockQuantity(), savedItem.getMinimumStockLevel(),
+                creatingUser.getId(), savedItem.getLastUpdatedAt()));
+        return savedItem;
     }
 
     // service for updateInventoryItem
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORY_COUNTS, allEntries = true)
     public InventoryItem updateInventoryItem(String itemCode, String itemName, String itemDescription, String unitOfMeasurement,
                                              BigDecimal minimumStockLevel,
                                              String locationInStore,
@@ -137,66 +177,88 @@ public class InventoryService {
         return inventoryItemRepository.findByItemCode(itemCode);
     }
 
-    public List<InventoryItem> getAllInventoryItems() {
-        return inventoryItemRepository.findAll();
+    public List<InventoryItemResponseDTO> getAllInventoryItems() {
+        return inventoryItemRepository.findAllItemDTOs();
     }
 
-    // NEW METHOD: Get inventory items by category name
-    public List<InventoryItemResponseDTO> getInventoryItemsByCategory(String categoryName) {
-        return inventoryItemRepository.findByItemCategory(
-                        itemCategoryRepository.findByName(categoryName)
-                                .orElseThrow(() -> new IllegalArgumentException(ITEM_CATEGORY + categoryName + NOT_FOUND))
-                )
-                .stream()
-                .map(this::mapToDTO) // Map each entity to the DTO
-                .toList();
-    }
+    // NEW METHOD: Keyset page of inventory items, memory stays bounded by the page size however big the catalogue is
+    public CursorPageResponseDTO<InventoryItemResponseDTO> getInventoryItemsPage(String cursor, Integer size, String sortBy) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Pageable pageable = PageRequest.of(0, pageSize);
+        boolean firstPage = cursor == null || cursor.isBlank();
 
-    // Helper method to map entity to DTO
-    private InventoryItemResponseDTO mapToDTO(InventoryItem item) {
-        InventoryItemResponseDTO dto = new InventoryItemResponseDTO();
-        dto.setId(item.getId());
-        dto.setItemCode(item.getItemCode());
-        dto.setItemName(item.getItemName());
-        dto.setItemDescription(item.getItemDescription());
-        dto.setUnitOfMeasurement(item.getUnitOfMeasurement());
-        dto.setCurrentStockQuantity(item.getCurrentStockQuantity());
-        dto.setMinimumStockLevel(item.getMinimumStockLevel());
-        dto.setLocationInStore(item.getLocationInStore());
-        dto.setUnitPrice(item.getUnitPrice());
-        dto.setIsActive(item.getIsActive());
-        dto.setStockStatus(item.getStockStatus());
-
-        // Set the new field
-        dto.setPendingPurchaseRequest(item.getPendingPurchaseRequest());
-
-        // Map related entity fields
-        if (item.getItemCategory() != null) {
-            dto.setItemCategoryId(item.getItemCategory().getId());
-            dto.setItemCategoryName(item.getItemCategory().getName());
+        // cursor = sort key, item code and id of the last row on the previous page
+        String[] after = firstPage ? null : CursorUtil.decode(cursor, 3);
+        if (after != null && !after[0].equals(sortBy)) {
+            throw new IllegalArgumentException("Cursor was issued for sort '" + after[0] + "', not '" + sortBy + "'.");
         }
-        if (item.getItemType() != null) {
-            dto.setItemTypeId(item.getItemType().getId());
-            dto.setItemTypeName(item.getItemType().getName());
+
+        Slice<InventoryItemResponseDTO> slice;
+        if (SORT_BY_ITEM_CODE.equals(sortBy)) {
+            slice = firstPage
+                    ? inventoryItemRepository.findFirstPageOrderByItemCode(pageable)
+                    : inventoryItemRepository.findPageAfterItemCode(after[1], Long.valueOf(after[2]), pageable);
+        } else if (SORT_BY_ID.equals(sortBy)) {
+            slice = firstPage
+                    ? inventoryItemRepository.findFirstPageOrderById(pageable)
+                    : inventoryItemRepository.findPageAfterId(Long.valueOf(after[2]), pageable);
+        } else {
+            throw new IllegalArgumentException("Unsupported sort '" + sortBy + "'. Use '" + SORT_BY_ITEM_CODE + "' or '" + SORT_BY_ID + "'.");
         }
-        if (item.getCreatingUser() != null) {
-            dto.setCreatedByUserId(item.getCreatingUser().getId());
-            dto.setCreatedByUsername(item.getCreatingUser().getUsername());
+
+        List<InventoryItemResponseDTO> items = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            InventoryItemResponseDTO last = items.get(items.size() - 1);
+            nextCursor = CursorUtil.encode(sortBy, last.getItemCode(), String.valueOf(last.getId()));
         }
-        if (item.getLastUpdatedByUser() != null) {
-            dto.setLastUpdatedByUserId(item.getLastUpdatedByUser().getId());
-            dto.setLastUpdatedByUsername(item.getLastUpdatedByUser().getUsername());
+
+        return new CursorPageResponseDTO<>(
+                items,
+                nextCursor,
+                slice.hasNext(),
+                pageSize
+        );
+    }
+
+    // Typeahead search over item code, name and description, best matches first
+    public List<InventoryItemResponseDTO> searchInventoryItems(String query, Integer limit) {
+        SearchTermUtil.SearchTerm search = SearchTermUtil.parse(query, limit);
+        List<Long> ids = inventoryItemRepository.searchItemIds(search.term(), search.containsPattern(), search.prefixPattern(),
+                search.limit());
+        if (ids.isEmpty()) {
+            return List.of();
         }
-        dto.setLastUpdatedAt(item.getLastUpdatedAt());
 
-        return dto;
+        // The DTO query does not keep the ranking, put the rows back in search order
+        Map<Long, InventoryItemResponseDTO> itemsById = inventoryItemRepository.findItemDTOsByIdIn(ids).stream()
+                .collect(Collectors.toMap(InventoryItemResponseDTO::getId, Function.identity()));
+        return ids.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Stock on hand at a past moment, read from the stock movement ledger
+    public StockLevelAtDTO getStockAt(String itemCode, LocalDateTime at) {
+        InventoryItem item = inventoryItemRepository.findByItemCode(itemCode)
+                .orElseThrow(() -> new IllegalArgumentException(ITEM_WITH_CODE + itemCode + NOT_FOUND));
+        return new StockLevelAtDTO(item.getId(), item.getItemCode(), at, stockLedgerService.getStockAt(item.getId(), at));
+    }
+
+    // NEW METHOD: Get inventory items by category name
+    public List<InventoryItemResponseDTO> getInventoryItemsByCategory(String categoryName) {
+        ItemCategory category = itemCategoryRepository.findByName(categoryName)
+                .orElseThrow(() -> new IllegalArgumentException(ITEM_CATEGORY + categoryName + NOT_FOUND));
+        return inventoryItemRepository.findItemDTOsByCategoryId(category.getId());
     }
 
     // NEW METHOD: Get inventory items by category ID
-    public List<InventoryItem> getInventoryItemsByCategoryId(Long categoryId) {
-        ItemCategory category = itemCategoryRepository.findById(categoryId)
-                .orElseThrow(() -> new IllegalArgumentException("Item Category with ID '" + categoryId + NOT_FOUND));
-        return inventoryItemRepository.findByItemCategory(category);
+    public List<InventoryItemResponseDTO> getInventoryItemsByCategoryId(Long categoryId) {
+        if (!itemCategoryRepository.existsById(categoryId)) {
+            throw new IllegalArgumentException("Item Category with ID '" + categoryId + NOT_FOUND);
+        }
+        return inventoryItemRepository.findItemDTOsByCategoryId(categoryId);
     }
 
     // NEW METHOD: Get all categories with their inventory items count
@@ -204,39 +266,39 @@ public class InventoryService {
         return itemCategoryRepository.findAll();
     }
 
-    public List<InventoryItem> getLowStockItems() {
-        return inventoryItemRepository.findAll().stream()
-                .filter(item -> item.getStockStatus() == StockStatus.LOW || item.getStockStatus() == StockStatus.OUT_OF_STOCK)
-                .toList();
+    public List<InventoryItemResponseDTO> getLowStockItems() {
+        return inventoryItemRepository.findLowStockItemDTOs();
     }
 
     // NEW METHOD: Get low stock items by category
     public List<InventoryItemResponseDTO> getLowStockItemsByCategory(String categoryName) {
-        // Now calling the method that returns DTOs and filtering that result
-        return getInventoryItemsByCategory(categoryName).stream()
-                .filter(item -> item.getStockStatus() == StockStatus.LOW || item.getStockStatus() == StockStatus.OUT_OF_STOCK)
-                .toList();
+        ItemCategory category = itemCategoryRepository.findByName(categoryName)
+                .orElseThrow(() -> new IllegalArgumentException(ITEM_CATEGORY + categoryName + NOT_FOUND));
+        return inventoryItemRepository.findLowStockItemDTOsByCategoryId(category.getId());
     }
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORY_COUNTS, allEntries = true)
     public InventoryItem adjustStock(Long itemId, @NotNull(message = "Quantity change cannot be null") BigDecimal quantityChange, Long adjustingUserId, String reason) {
         InventoryItem item = inventoryItemRepository.findById(itemId)
                 .orElseThrow(() -> new IllegalArgumentException("Inventory item with ID " + itemId + NOT_FOUND));
 
-        BigDecimal newQuantity = item.getCurrentStockQuantity().add(quantityChange);
-
+        User adjustingUser = userRepository.findById(adjustingUserId)
+                .orElseThrow(() -> new IllegalArgumentException("Adjusting User with ID " + adjustingUserId + NOT_FOUND));
 
-        if (newQuantity.compareTo(BigDecimal.ZERO) < 0 && item.getItemType() != null && item.getItemType().getName().equals("Material")) {
+        boolean allowNegative = item.getItemType() == null || !item.getItemType().getName().equals("Material");
+        LocalDateTime adjustedAt = LocalDateTime.now();
+        int updated = inventoryItemRepository.adjustStock(itemId, quantityChange, allowNegative, adjustingUser, adjustedAt);
+        if (updated == 0) {
             throw new IllegalArgumentException("Stock quantity cannot go below zero for " + item.getItemName() + " (Type: Material).");
         }
+        stockLedgerService.recordAdjustment(itemId, quantityChange, adjustingUserId, reason, adjustedAt);
+        inventoryMetrics.stockAdjusted(quantityChange);
 
-        item.setCurrentStockQuantity(newQuantity);
-
-        User adjustingUser = userRepository.findById(adjustingUserId)
-                .orElseThrow(() -> new IllegalArgumentException("Adjusting User with ID " + adjustingUserId + NOT_FOUND));
-        item.setLastUpdatedByUser(adjustingUser);
-        item.setLastUpdatedAt(LocalDateTime.now());
-
-        return inventoryItemRepository.save(item);
+        // Pick up the quantity written by the database
+        entityManager.refresh(item);
+        eventPublisher.publishEvent(new StockAdjusted(item.getId(), item.getItemCode(), quantityChange,
+                item.getCurrentStockQuantity(), item.getMinimumStockLevel(), adjustingUserId, reason, adjustedAt));
+        return item;
     }
 
 
@@ -0,0 +1,113 @@
+package com.irrigation.erp.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.irrigation.erp.backend.dto.InventoryIssueResponseDTO;
+import com.irrigation.erp.backend.enums.IssueExportFormat;
+import com.irrigation.erp.backend.repository.InventoryIssueRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class IssueExportService {
+
+    static final String CSV_HEADER = "id,issuedAt,issuedQuantity,itemValue,issuedItemId,issuedItemCode,issuedItemName,itemType,"
+            + "issuedByUserId,issuedByUsername,issuedToUserId,issuedToUsername,requestCode,requestLineItemId,requestedQuantity,purpose,notes";
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private final InventoryIssueRepository inventoryIssueRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public IssueExportService(InventoryIssueRepository inventoryIssueRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.inventoryIssueRepository = inventoryIssueRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Arguments are checked up front so bad requests fail before the response is committed,
+    // the rows themselves are read inside the returned body on the async request thread
+    public StreamingResponseBody exportIssues(LocalDate from, LocalDate to, Long itemId, IssueExportFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Export format is required.");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'.");
+        }
+        LocalDateTime fromTime = (from == null ? InventoryIssueService.EARLIEST_ISSUE_DATE : from).atStartOfDay();
+        LocalDateTime toTime = (to == null ? InventoryIssueService.LATEST_ISSUE_DATE : to.plusDays(1)).atStartOfDay();
+
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            // Reading from a cursor needs an open transaction for the whole stream, PostgreSQL only honours
+            // the fetch size with autocommit off
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<InventoryIssueResponseDTO> rows = inventoryIssueRepository.streamIssueDTOs(fromTime, toTime, itemId)) {
+                    writeRows(rows.iterator(), format, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+    }
+
+    void writeRows(Iterator<InventoryIssueResponseDTO> rows, IssueExportFormat format, Writer writer) throws IOException {
+        if (format == IssueExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write("\n");
+        }
+        int written = 0;
+        while (rows.hasNext()) {
+            InventoryIssueResponseDTO row = rows.next();
+            writer.write(format == IssueExportFormat.CSV ? toCsvLine(row) : objectMapper.writeValueAsString(row));
+            writer.write("\n");
+            if (++written % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+    }
+
+    private String toCsvLine(InventoryIssueResponseDTO row) {
+        return String.join(",",
+                value(row.getId()), value(row.getIssuedAt()), number(row.getIssuedQuantity()), number(row.getItemValue()),
+                value(row.getIssuedItemId()), text(row.getIssuedItemCode()), text(row.getIssuedItemName()), text(row.getItemType()),
+                value(row.getIssuedByUserId()), text(row.getIssuedByUsername()),
+                value(row.getIssuedToUserId()), text(row.getIssuedToUsername()),
+                text(row.getRequestCode()), value(row.getRequestLineItemId()), number(row.getRequestedQuantity()),
+                text(row.getPurpose()), text(row.getNotes()));
+    }
+
+    private static String value(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String number(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    // Quotes free text and defuses leading formula characters, the export is opened in spreadsheets
+    static String text(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String cell = "=+-@\t\r".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        return "\"" + cell.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,71 @@
+package com.irrigation.erp.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Write-behind for users.last_login: logins only touch memory, repeated logins by the same user
+// collapse to the latest timestamp, and the pending set goes out as one batched UPDATE per interval.
+// A crash loses at most one interval of last-login times, which are informational only.
+@Service
+public class LastLoginRecorder {
+
+    private static final String UPDATE_SQL = """
+            UPDATE users SET last_login = ?
+            WHERE id = ? AND (last_login IS NULL OR last_login < ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public LastLoginRecorder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(Long userId, LocalDateTime loginAt) {
+        pending.merge(userId, loginAt, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.last-login.flush-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Id order keeps concurrent flushes from different nodes from deadlocking on the row locks
+        Map<Long, LocalDateTime> batch = new TreeMap<>();
+        for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet()) {
+            // Only drop the entry if no newer login replaced it meanwhile, that one goes out next time
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        List<Object[]> args = new ArrayList<>(batch.size());
+        batch.forEach((userId, loginAt) -> {
+            Timestamp timestamp = Timestamp.valueOf(loginAt);
+            args.add(new Object[]{timestamp, userId, timestamp});
+        });
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+        } catch (RuntimeException e) {
+            // Put the batch back so the next run retries it
+            batch.forEach(this::record);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,40 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.event.DomainEventConsumer;
+import com.irrigation.erp.backend.event.StockChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// Raises one alert when an issue or adjustment takes an item to or below its minimum level. Further changes
+// while the item stays low do not repeat it.
+@Component
+public class LowStockAlertConsumer implements DomainEventConsumer<StockChange> {
+
+    static final String LOW_STOCK_ALERTS = "inventory.low.stock.alerts";
+
+    private static final Logger log = LoggerFactory.getLogger(LowStockAlertConsumer.class);
+
+    private final Counter alerts;
+
+    public LowStockAlertConsumer(MeterRegistry meterRegistry) {
+        this.alerts = Counter.builder(LOW_STOCK_ALERTS).description("Items that dropped to or below their minimum level")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Class<StockChange> eventType() {
+        return StockChange.class;
+    }
+
+    @Override
+    public void accept(StockChange change) {
+        if (!change.crossedMinimum()) {
+            return;
+        }
+        alerts.increment();
+        log.warn("Item {} is down to {} (minimum {})", change.itemCode(), change.stockAfter(), change.minimumStockLevel());
+    }
+}
@@ -0,0 +1,91 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.model.InventoryIssue;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.temporal.Temporal;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Keeps material_distribution_monthly in step with inventory_issues. Callers invoke it inside the
+// transaction that writes the issues, so the rollup commits or rolls back together with them.
+// Issue history from before the rollup existed is loaded once by the V10 migration.
+@Service
+public class MaterialDistributionRollupService {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO material_distribution_monthly (user_id, item_id, issue_month, quantity)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (user_id, item_id, issue_month)
+            DO UPDATE SET quantity = material_distribution_monthly.quantity + EXCLUDED.quantity
+            """;
+
+    private static final String DELETE_EMPTY_SQL = """
+            DELETE FROM material_distribution_monthly
+            WHERE user_id = ? AND item_id = ? AND issue_month = ? AND quantity = 0
+            """;
+
+    private static final Comparator<RollupKey> LOCK_ORDER = Comparator.comparing(RollupKey::userId)
+            .thenComparing(RollupKey::itemId)
+            .thenComparing(RollupKey::issueMonth);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MaterialDistributionRollupService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static int toIssueMonth(Temporal date) {
+        return date.get(ChronoField.YEAR) * 100 + date.get(ChronoField.MONTH_OF_YEAR);
+    }
+
+    public void recordIssues(Collection<InventoryIssue> issues) {
+        apply(issues, false);
+    }
+
+    // For issues being deleted, or for the old values of an issue about to be edited
+    public void reverseIssues(Collection<InventoryIssue> issues) {
+        apply(issues, true);
+    }
+
+    private void apply(Collection<InventoryIssue> issues, boolean reverse) {
+        // One upsert per (user, item, month), in a fixed order so concurrent writers lock rows consistently
+        Map<RollupKey, BigDecimal> deltas = new TreeMap<>(LOCK_ORDER);
+        for (InventoryIssue issue : issues) {
+            BigDecimal quantity = reverse ? issue.getIssuedQuantity().negate() : issue.getIssuedQuantity();
+            Long itemId = issue.getIssuedItem().getId();
+            int issueMonth = toIssueMonth(issue.getIssuedAt());
+            Long issuedById = issue.getIssuedByUser().getId();
+            Long issuedToId = issue.getIssuedToUser().getId();
+
+            deltas.merge(new RollupKey(issuedById, itemId, issueMonth), quantity, BigDecimal::add);
+            if (!issuedToId.equals(issuedById)) {
+                deltas.merge(new RollupKey(issuedToId, itemId, issueMonth), quantity, BigDecimal::add);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, quantity) -> rows.add(new Object[]{key.userId(), key.itemId(), key.issueMonth(), quantity}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+
+        // A month with nothing left should not show up as a zero row in the table
+        if (reverse) {
+            List<Object[]> keys = new ArrayList<>(deltas.size());
+            deltas.keySet().forEach(key -> keys.add(new Object[]{key.userId(), key.itemId(), key.issueMonth()}));
+            jdbcTemplate.batchUpdate(DELETE_EMPTY_SQL, keys);
+        }
+    }
+
+    private record RollupKey(Long userId, Long itemId, Integer issueMonth) {
+    }
+}
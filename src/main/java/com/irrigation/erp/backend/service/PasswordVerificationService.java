@@ -0,0 +1,44 @@
+package com.irrigation.erp.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// BCrypt checks run on their own small pool so a login burst cannot occupy every request thread.
+// The queue is bounded: once it is full, verify throws RejectedExecutionException and the caller answers 503.
+@Service
+public class PasswordVerificationService implements AutoCloseable {
+
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+
+    public PasswordVerificationService(BCryptPasswordEncoder passwordEncoder,
+                                       @Value("${auth.password-hashing.threads:0}") int threads,
+                                       @Value("${auth.password-hashing.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        // BCrypt is CPU bound, more threads than cores only adds contention
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CompletableFuture<Boolean> verify(String rawPassword, String encodedPassword) {
+        return CompletableFuture.supplyAsync(() -> passwordEncoder.matches(rawPassword, encodedPassword), executor);
+    }
+
+    // Lets checks already queued finish, used by Spring on shutdown and by code that builds its own instance
+    @PreDestroy
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -20,6 +20,7 @@ public class PurchaseRequestService {
     private final PurchaseRequestRepository purchaseRequestRepository;
     private final InventoryItemRepository inventoryItemRepository;
     private final InventoryRequestLineItemRepository inventoryRequestLineItemRepository;
+    private final ReorderService reorderService;
     public static final String ITEM_NOT_FOUND = "' not found.";
 
 
@@ -30,11 +31,13 @@ public class PurchaseRequestService {
             PurchaseRequestRepository purchaseRequestRepository,
             InventoryItemRepository inventoryItemRepository,
             InventoryRequestLineItemRepository inventoryRequestLineItemRepository,
-            GoodsReceivingNoteRepository goodsReceivingNoteRepository
+            GoodsReceivingNoteRepository goodsReceivingNoteRepository,
+            ReorderService reorderService
     ) {
         this.purchaseRequestRepository = purchaseRequestRepository;
         this.inventoryItemRepository = inventoryItemRepository;
         this.inventoryRequestLineItemRepository = inventoryRequestLineItemRepository;
+        this.reorderService = reorderService;
 
     }
 
@@ -119,6 +122,20 @@ public class PurchaseRequestService {
                 .orElseThrow(() -> new IllegalArgumentException("Purchase request with ID " + requestId + ITEM_NOT_FOUND));
     }
 
+    @Transactional
+    public PurchaseRequest rejectPurchaseRequest(Long requestId) {
+        return purchaseRequestRepository.findById(requestId)
+                .map(request -> {
+                    if (request.getStatus() != PurchaseRequest.Status.PENDING) {
+                        throw new IllegalStateException("Cannot reject a request that is not in PENDING status.");
+                    }
+                    request.setStatus(PurchaseRequest.Status.REJECTED);
+                    reorderService.releaseItems(request);
+                    return purchaseRequestRepository.save(request);
+                })
+                .orElseThrow(() -> new IllegalArgumentException("Purchase request with ID " + requestId + ITEM_NOT_FOUND));
+    }
+
     public List<PurchaseResponseDTO> getAllPurchaseRequests() {
         return purchaseRequestRepository.findAllPurchaseRequestsWithItemNames();
     }
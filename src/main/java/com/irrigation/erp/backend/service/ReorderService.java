@@ -0,0 +1,160 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.dto.ReorderCandidateDTO;
+import com.irrigation.erp.backend.model.PurchaseRequest;
+import com.irrigation.erp.backend.model.PurchaseRequestLineItem;
+import com.irrigation.erp.backend.repository.InventoryItemRepository;
+import com.irrigation.erp.backend.repository.PurchaseRequestRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Drafts purchase requests for every active item at or below its minimum level that has none on the way.
+// Each item is ordered back up to its minimum plus the demand expected over app.reorder.cover-days, judged from
+// what was issued over the last app.reorder.consumption-days; an item with no recent issues gets one extra
+// minimum level. One PENDING request per category, so every draft still goes through approval.
+// The scheduled run is off until app.reorder.requested-by-user-id names the user the drafts are raised for.
+@Service
+public class ReorderService {
+
+    // pg_try_advisory_xact_lock key, only one node runs the engine at a time
+    private static final long REORDER_LOCK = 0x52454f52444552L;
+    private static final int CLAIM_CHUNK = 1000;
+    private static final DateTimeFormatter REF_NO_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final PurchaseRequestRepository purchaseRequestRepository;
+    private final EntityManager entityManager;
+    private final Long scheduledUserId;
+    private final int consumptionDays;
+    private final int coverDays;
+
+    public ReorderService(InventoryItemRepository inventoryItemRepository,
+                          PurchaseRequestRepository purchaseRequestRepository,
+                          EntityManager entityManager,
+                          @Value("${app.reorder.requested-by-user-id:#{null}}") Long scheduledUserId,
+                          @Value("${app.reorder.consumption-days:90}") int consumptionDays,
+                          @Value("${app.reorder.cover-days:30}") int coverDays) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.purchaseRequestRepository = purchaseRequestRepository;
+        this.entityManager = entityManager;
+        this.scheduledUserId = scheduledUserId;
+        this.consumptionDays = consumptionDays;
+        this.coverDays = coverDays;
+    }
+
+    @Scheduled(cron = "${app.reorder.cron:0 0 5 * * *}")
+    @Transactional
+    public void scheduledReorder() {
+        if (scheduledUserId != null) {
+            draftReorders(scheduledUserId);
+        }
+    }
+
+    // Everything happens in one transaction: the drafts and the pending flags commit together or not at all
+    @Transactional
+    public List<PurchaseRequest> draftReorders(Long requestedByUserId) {
+        Boolean locked = (Boolean) entityManager.createNativeQuery("SELECT pg_try_advisory_xact_lock(:key)")
+                .setParameter("key", REORDER_LOCK)
+                .getSingleResult();
+        if (!Boolean.TRUE.equals(locked)) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, BigDecimal> quantities = new LinkedHashMap<>();
+        Map<Long, ReorderCandidateDTO> candidates = new LinkedHashMap<>();
+        for (ReorderCandidateDTO candidate : inventoryItemRepository.findReorderCandidates(now.minusDays(consumptionDays))) {
+            BigDecimal quantity = suggestedQuantity(candidate);
+            if (quantity.signum() > 0) {
+                quantities.put(candidate.getItemId(), quantity);
+                candidates.put(candidate.getItemId(), candidate);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> claimed = new HashSet<>();
+        List<Long> itemIds = new ArrayList<>(candidates.keySet());
+        for (int from = 0; from < itemIds.size(); from += CLAIM_CHUNK) {
+            claimed.addAll(inventoryItemRepository.claimForReorder(
+                    itemIds.subList(from, Math.min(from + CLAIM_CHUNK, itemIds.size())), now));
+        }
+
+        // Candidates come sorted by category name, so this keeps one draft per category in that order
+        Map<Long, PurchaseRequest> draftsByCategory = new LinkedHashMap<>();
+        for (ReorderCandidateDTO candidate : candidates.values()) {
+            if (!claimed.contains(candidate.getItemId())) {
+                continue;
+            }
+            PurchaseRequest draft = draftsByCategory.computeIfAbsent(candidate.getCategoryId(),
+                    categoryId -> newDraft(categoryId, requestedByUserId, now));
+
+            BigDecimal quantity = quantities.get(candidate.getItemId());
+            PurchaseRequestLineItem line = new PurchaseRequestLineItem();
+            line.setPurchaseRequest(draft);
+            line.setInventoryItemId(candidate.getItemId());
+            line.setItemName(candidate.getItemName());
+            line.setQuantity(quantity);
+            line.setEstimatedPrice(candidate.getUnitPrice().multiply(quantity));
+            draft.getItems().add(line);
+            draft.setTotalValue(draft.getTotalValue().add(line.getEstimatedPrice()));
+        }
+
+        return purchaseRequestRepository.saveAll(draftsByCategory.values());
+    }
+
+    // Once a purchase request has been received or rejected its items may be reordered again. Only lines that
+    // name an inventory item (the drafted ones) carry a flag to clear.
+    @Transactional
+    public void releaseItems(PurchaseRequest purchaseRequest) {
+        List<Long> itemIds = purchaseRequest.getItems().stream()
+                .map(PurchaseRequestLineItem::getInventoryItemId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < itemIds.size(); from += CLAIM_CHUNK) {
+            inventoryItemRepository.releaseFromReorder(itemIds.subList(from, Math.min(from + CLAIM_CHUNK, itemIds.size())), now);
+        }
+    }
+
+    BigDecimal suggestedQuantity(ReorderCandidateDTO candidate) {
+        BigDecimal minimum = candidate.getMinimumStockLevel();
+        BigDecimal expectedDemand = candidate.getConsumedQuantity()
+                .multiply(BigDecimal.valueOf(coverDays))
+                .divide(BigDecimal.valueOf(consumptionDays), 2, RoundingMode.HALF_UP);
+        if (expectedDemand.signum() == 0) {
+            expectedDemand = minimum;
+        }
+        return minimum.add(expectedDemand)
+                .subtract(candidate.getCurrentStockQuantity())
+                .setScale(0, RoundingMode.CEILING);
+    }
+
+    private static PurchaseRequest newDraft(Long categoryId, Long requestedByUserId, LocalDateTime now) {
+        PurchaseRequest draft = new PurchaseRequest();
+        draft.setRefNo("REORDER-" + now.format(REF_NO_TIME) + "-" + categoryId);
+        draft.setRequestedByUserId(requestedByUserId);
+        draft.setRequestedAt(now);
+        draft.setStatus(PurchaseRequest.Status.PENDING);
+        draft.setTotalValue(BigDecimal.ZERO);
+        draft.setItems(new ArrayList<>());
+        return draft;
+    }
+}
@@ -0,0 +1,130 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.model.GoodsReceivingItem;
+import com.irrigation.erp.backend.model.InventoryIssue;
+import com.irrigation.erp.backend.model.StockMovement;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Writes stock_movements alongside every change to currentStockQuantity and keeps per-item snapshots over it.
+// Callers invoke it inside the transaction that changes the stock and after the item row is locked, so
+// an item's movements commit in id order and always together with the stock they explain.
+// Items that predate the ledger got their OPENING movement from the V11 migration.
+@Service
+public class StockLedgerService {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO stock_movements (item_id, movement_type, quantity, moved_at, user_id, reference_id, note)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // One statement sees every item's committed movements as a prefix in id order, so a snapshot never
+    // skips a movement that commits later
+    private static final String SNAPSHOT_SQL = """
+            INSERT INTO stock_snapshots (item_id, last_movement_id, last_moved_at, quantity, taken_at)
+            SELECT i.id, t.last_movement_id, t.last_moved_at, COALESCE(s.quantity, 0) + t.quantity, ?
+            FROM inventory_items i
+            LEFT JOIN LATERAL (
+                SELECT ss.quantity, ss.last_movement_id FROM stock_snapshots ss
+                WHERE ss.item_id = i.id ORDER BY ss.last_movement_id DESC LIMIT 1
+            ) s ON true
+            JOIN LATERAL (
+                SELECT MAX(m.id) AS last_movement_id, MAX(m.moved_at) AS last_moved_at, SUM(m.quantity) AS quantity
+                FROM stock_movements m
+                WHERE m.item_id = i.id AND m.id > COALESCE(s.last_movement_id, 0)
+            ) t ON t.last_movement_id IS NOT NULL
+            ON CONFLICT DO NOTHING
+            """;
+
+    // Nearest snapshot at or before :at plus the movements up to :at. The tail never reaches past the next
+    // snapshot, so it is at most one snapshot interval of movements whatever the item's history
+    private static final String STOCK_AT_SQL = """
+            WITH base AS (
+                SELECT quantity, last_movement_id FROM stock_snapshots
+                WHERE item_id = ? AND last_moved_at <= ?
+                ORDER BY last_moved_at DESC, last_movement_id DESC LIMIT 1
+            ), next AS (
+                SELECT last_movement_id FROM stock_snapshots
+                WHERE item_id = ? AND last_movement_id > COALESCE((SELECT last_movement_id FROM base), 0)
+                ORDER BY last_movement_id LIMIT 1
+            )
+            SELECT (SELECT quantity FROM base) AS snapshot_quantity, SUM(m.quantity) AS tail_quantity
+            FROM stock_movements m
+            WHERE m.item_id = ?
+              AND m.id > COALESCE((SELECT last_movement_id FROM base), 0)
+              AND m.id <= COALESCE((SELECT last_movement_id FROM next), 9223372036854775807)
+              AND m.moved_at <= ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockLedgerService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void recordOpening(Long itemId, BigDecimal quantity, Long userId, LocalDateTime at) {
+        insert(List.<Object[]>of(row(itemId, StockMovement.Type.OPENING, quantity, at, userId, null, null)));
+    }
+
+    public void recordIssues(Collection<InventoryIssue> issues) {
+        List<Object[]> rows = new ArrayList<>(issues.size());
+        for (InventoryIssue issue : issues) {
+            rows.add(row(issue.getIssuedItem().getId(), StockMovement.Type.ISSUE, issue.getIssuedQuantity().negate(),
+                    issue.getIssuedAt(), issue.getIssuedByUser().getId(), issue.getId(), null));
+        }
+        insert(rows);
+    }
+
+    public void recordAdjustment(Long itemId, BigDecimal quantityChange, Long userId, String reason, LocalDateTime at) {
+        insert(List.<Object[]>of(row(itemId, StockMovement.Type.ADJUSTMENT, quantityChange, at, userId, null, reason)));
+    }
+
+    // Only receiving lines that name an inventory item move stock
+    public void recordReceipts(Collection<GoodsReceivingItem> receivedItems, Long userId, LocalDateTime at) {
+        List<Object[]> rows = new ArrayList<>(receivedItems.size());
+        for (GoodsReceivingItem received : receivedItems) {
+            if (received.getInventoryItem() != null) {
+                rows.add(row(received.getInventoryItem().getId(), StockMovement.Type.RECEIPT,
+                        BigDecimal.valueOf(received.getQuantity()), at, userId, received.getId(), null));
+            }
+        }
+        insert(rows);
+    }
+
+    // Stock on hand for the item at the given time, as recorded by the ledger
+    public BigDecimal getStockAt(Long itemId, LocalDateTime at) {
+        Timestamp atTime = Timestamp.valueOf(at);
+        return jdbcTemplate.queryForObject(STOCK_AT_SQL, (rs, rowNum) -> {
+            BigDecimal snapshot = rs.getBigDecimal("snapshot_quantity");
+            BigDecimal tail = rs.getBigDecimal("tail_quantity");
+            if (snapshot == null && tail == null) {
+                throw new IllegalArgumentException("No stock history for item " + itemId + " at or before " + at + ".");
+            }
+            return (snapshot == null ? BigDecimal.ZERO : snapshot).add(tail == null ? BigDecimal.ZERO : tail);
+        }, itemId, atTime, itemId, itemId, atTime);
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.snapshot-ms:3600000}", initialDelayString = "${app.stock.snapshot-ms:3600000}")
+    public int takeSnapshots() {
+        return jdbcTemplate.update(SNAPSHOT_SQL, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private void insert(List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    private static Object[] row(Long itemId, StockMovement.Type type, BigDecimal quantity, LocalDateTime at,
+                                Long userId, Long referenceId, String note) {
+        return new Object[]{itemId, type.name(), quantity, Timestamp.valueOf(at), userId, referenceId, note};
+    }
+}
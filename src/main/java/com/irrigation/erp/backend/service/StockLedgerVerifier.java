@@ -0,0 +1,118 @@
+package com.irrigation.erp.backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Checks that every item's stock_movements add up to its currentStockQuantity. The item id range is cut
+// into app.stock.verify-partitions slices checked side by side on app.stock.verify-threads threads, each
+// slice in one statement so it sees stock and movements as of the same moment. The full ledger is summed
+// on purpose: a check that trusted the snapshots could not catch a bad one.
+@Component
+public class StockLedgerVerifier {
+
+    static final String MISMATCHES = "stock.ledger.mismatches";
+    static final String VERIFY_TIMER = "stock.ledger.verify";
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedgerVerifier.class);
+
+    private static final String PARTITION_SQL = """
+            SELECT i.id, i.item_code, i.current_stock_quantity, COALESCE(SUM(m.quantity), 0) AS ledger_quantity
+            FROM inventory_items i
+            LEFT JOIN stock_movements m ON m.item_id = i.id
+            WHERE i.id BETWEEN ? AND ?
+            GROUP BY i.id, i.item_code, i.current_stock_quantity
+            HAVING i.current_stock_quantity <> COALESCE(SUM(m.quantity), 0)
+            ORDER BY i.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int partitions;
+    private final ExecutorService executor;
+    private final AtomicInteger lastMismatches = new AtomicInteger();
+
+    public StockLedgerVerifier(JdbcTemplate jdbcTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.stock.verify-threads:4}") int threads,
+                               @Value("${app.stock.verify-partitions:16}") int partitions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.partitions = partitions;
+        this.executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("stock-verifier-"));
+        Gauge.builder(MISMATCHES, lastMismatches, AtomicInteger::get)
+                .description("Items whose ledger did not match their stock on the last verification")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.stock.verify-cron:0 30 2 * * *}")
+    public List<Mismatch> verify() throws InterruptedException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM inventory_items");
+        List<Mismatch> mismatches = new ArrayList<>();
+        if (bounds.get("min_id") != null) {
+            List<Future<List<Mismatch>>> slices = new ArrayList<>();
+            for (long[] range : partition(((Number) bounds.get("min_id")).longValue(), ((Number) bounds.get("max_id")).longValue(), partitions)) {
+                slices.add(executor.submit(() -> verifyRange(range[0], range[1])));
+            }
+            try {
+                for (Future<List<Mismatch>> slice : slices) {
+                    mismatches.addAll(slice.get());
+                }
+            } catch (ExecutionException e) {
+                slices.forEach(slice -> slice.cancel(true));
+                throw new IllegalStateException("Stock ledger verification failed", e.getCause());
+            }
+        }
+
+        for (Mismatch mismatch : mismatches) {
+            log.warn("Stock ledger mismatch for item {} ({}): stock {}, ledger {}", mismatch.itemCode(), mismatch.itemId(),
+                    mismatch.stockQuantity(), mismatch.ledgerQuantity());
+        }
+        lastMismatches.set(mismatches.size());
+        sample.stop(Timer.builder(VERIFY_TIMER).description("Time to verify the stock ledger of the whole catalogue")
+                .register(meterRegistry));
+        return mismatches;
+    }
+
+    List<Mismatch> verifyRange(long fromId, long toId) {
+        return jdbcTemplate.query(PARTITION_SQL, (rs, rowNum) -> new Mismatch(rs.getLong("id"), rs.getString("item_code"),
+                rs.getBigDecimal("current_stock_quantity"), rs.getBigDecimal("ledger_quantity")), fromId, toId);
+    }
+
+    // Contiguous, inclusive id ranges covering [minId, maxId], at most `count` of them
+    static List<long[]> partition(long minId, long maxId, int count) {
+        long width = Math.max(1, (maxId - minId + count) / count);
+        List<long[]> ranges = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += width) {
+            ranges.add(new long[]{from, Math.min(maxId, from + width - 1)});
+        }
+        return ranges;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public record Mismatch(Long itemId, String itemCode, BigDecimal stockQuantity, BigDecimal ledgerQuantity) {
+    }
+}
@@ -1,26 +1,80 @@
 package com.irrigation.erp.backend.service;
 
+import com.irrigation.erp.backend.dto.CursorPageResponseDTO;
 import com.irrigation.erp.backend.dto.UserDto;
 import com.irrigation.erp.backend.model.User;
 import com.irrigation.erp.backend.repository.UserRepository;
+import com.irrigation.erp.backend.util.CursorUtil;
+import com.irrigation.erp.backend.util.SearchTermUtil;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class UserService {
 
+    public static final String SORT_BY_USERNAME = "username";
+    public static final String SORT_BY_ID = "id";
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
 
     @Autowired
     private UserRepository userRepository;
 
-    public List<UserDto> getAllUsers() {
-        List<User> users = userRepository.findAll(); // Only get active users
-        return users.stream()
-                .map(this::convertToDto)
-                .toList();
+    // The revocation is committed with the delete, so other nodes pick it up on their next reload
+    @Transactional
+    public void deleteUser(Long id) {
+        userRepository.deleteById(id);
+        userRepository.recordDeleted(id);
+    }
+
+    // Keyset page of the user directory, active users only unless includeInactive is set
+    public CursorPageResponseDTO<UserDto> getUsersPage(String cursor, Integer size, String sortBy, boolean includeInactive) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Pageable pageable = PageRequest.of(0, pageSize);
+        boolean firstPage = cursor == null || cursor.isBlank();
+
+        // cursor = sort key, username and id of the last row on the previous page
+        String[] after = firstPage ? null : CursorUtil.decode(cursor, 3);
+        if (after != null && !after[0].equals(sortBy)) {
+            throw new IllegalArgumentException("Cursor was issued for sort '" + after[0] + "', not '" + sortBy + "'.");
+        }
+
+        Slice<UserDto> slice;
+        if (SORT_BY_USERNAME.equals(sortBy)) {
+            slice = firstPage
+                    ? userRepository.findFirstPageOrderByUsername(includeInactive, pageable)
+                    : userRepository.findPageAfterUsername(after[1], includeInactive, pageable);
+        } else if (SORT_BY_ID.equals(sortBy)) {
+            slice = firstPage
+                    ? userRepository.findFirstPageOrderById(includeInactive, pageable)
+                    : userRepository.findPageAfterId(Long.valueOf(after[2]), includeInactive, pageable);
+        } else {
+            throw new IllegalArgumentException("Unsupported sort '" + sortBy + "'. Use '" + SORT_BY_USERNAME + "' or '" + SORT_BY_ID + "'.");
+        }
+
+        List<UserDto> users = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            UserDto last = users.get(users.size() - 1);
+            nextCursor = CursorUtil.encode(sortBy, last.getUsername(), String.valueOf(last.getId()));
+        }
+
+        return new CursorPageResponseDTO<>(
+                users,
+                nextCursor,
+                slice.hasNext(),
+                pageSize
+        );
     }
 
     public UserDto getUserById(Long id) {
@@ -29,10 +83,20 @@ public class UserService {
         return convertToDto(user);
     }
 
-    public List<UserDto> searchUsersByName(String name) {
-        List<User> users = userRepository.findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCaseAndIsActiveTrue(name, name);
-        return users.stream()
-                .map(this::convertToDto)
+    // Name search over first and last name, best matches first and at most `limit` rows
+    public List<UserDto> searchUsersByName(String name, Integer limit, boolean includeInactive) {
+        SearchTermUtil.SearchTerm search = SearchTermUtil.parse(name, limit);
+        List<Long> ids = userRepository.searchUserIdsByName(search.term(), search.containsPattern(), search.prefixPattern(),
+                includeInactive, search.limit());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, UserDto> usersById = userRepository.findUserDTOsByIdIn(ids).stream()
+                .collect(Collectors.toMap(UserDto::getId, Function.identity()));
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
@@ -55,4 +119,4 @@ public class UserService {
 
         return dto;
     }
-}
\ No newline at end of file
+}
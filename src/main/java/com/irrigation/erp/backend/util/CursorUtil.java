@@ -0,0 +1,45 @@
+package com.irrigation.erp.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public final class CursorUtil {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String SEPARATOR = ".";
+    public static final String INVALID_CURSOR = "Invalid cursor.";
+
+    private CursorUtil() {
+    }
+
+    // Pack the keyset values of the last row of a page into an opaque, URL-safe token
+    public static String encode(String... parts) {
+        StringBuilder cursor = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                cursor.append(SEPARATOR);
+            }
+            cursor.append(ENCODER.encodeToString(parts[i].getBytes(StandardCharsets.UTF_8)));
+        }
+        return cursor.toString();
+    }
+
+    // Unpack a token produced by encode, rejecting anything that was not issued by us
+    public static String[] decode(String cursor, int expectedParts) {
+        String[] encodedParts = cursor.split("\\" + SEPARATOR, -1);
+        if (encodedParts.length != expectedParts) {
+            throw new IllegalArgumentException(INVALID_CURSOR);
+        }
+
+        String[] parts = new String[expectedParts];
+        try {
+            for (int i = 0; i < expectedParts; i++) {
+                parts[i] = new String(DECODER.decode(encodedParts[i]), StandardCharsets.UTF_8);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID_CURSOR);
+        }
+        return parts;
+    }
+}
@@ -1,14 +1,24 @@
 package com.irrigation.erp.backend.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @Component
 public class JwtUtil {
@@ -20,8 +30,31 @@ public class JwtUtil {
     @Value("${jwt.expiration:3153600000000}")
     private Long tokenExpiration ;
 
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private long claimsCacheMaxSize;
+
+    @Value("${jwt.claims-cache.ttl:5m}")
+    private Duration claimsCacheTtl;
+
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    private Cache<String, Claims> claimsCache;
+
+    // Key, parser and cache are built once instead of on every parse
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new ClaimsExpiry(claimsCacheTtl))
+                .build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
     }
 
     // Generate token with user details
@@ -86,47 +119,51 @@ public class JwtUtil {
         return claimsResolver.resolve(claims);
     }
 
-    // Get all claims from token
+    // Get all claims from token, throwing the parser's exception for invalid tokens
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return getValidClaims(token)
+                .orElseGet(() -> jwtParser.parseClaimsJws(token).getBody());
     }
 
-    // Check if token is expired - Modified for non-expiring tokens
-    public Boolean isTokenExpired(String token) {
-        try {
-            final Date expiration = getExpirationDateFromToken(token);
+    // Single parse and signature check per token; later calls with the same token are served from the cache
+    public Optional<Claims> getValidClaims(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
 
-            if (expiration == null) {
-                return false;
+        String key = hashToken(token);
+        Claims cached = claimsCache.getIfPresent(key);
+        if (cached != null) {
+            return isExpired(cached) ? Optional.empty() : Optional.of(cached);
+        }
+
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            if (isExpired(claims)) {
+                return Optional.empty();
             }
-            return expiration.before(new Date());
-        } catch (Exception e) {
-            return true;
+            claimsCache.put(key, claims);
+            return Optional.of(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
         }
     }
 
+    // Check if token is expired - Modified for non-expiring tokens
+    public Boolean isTokenExpired(String token) {
+        return getValidClaims(token).isEmpty();
+    }
+
     // Validate token
     public Boolean validateToken(String token, String email) {
-        try {
-            final String tokenEmail = getEmailFromToken(token);
-            return (tokenEmail.equals(email) && !isTokenExpired(token));
-        } catch (Exception e) {
-            return false;
-        }
+        return getValidClaims(token)
+                .map(claims -> claims.getSubject() != null && claims.getSubject().equals(email))
+                .orElse(false);
     }
 
     // Check if token is valid without email
     public Boolean isTokenValid(String token) {
-        try {
-            getAllClaimsFromToken(token);
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
-        }
+        return getValidClaims(token).isPresent();
     }
 
     // Check if this token has an expiration date
@@ -147,6 +184,46 @@ public class JwtUtil {
         return tokenExpiration  / (1000 * 60);
     }
 
+    private static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
+    }
+
+    // Cache keys are token digests so raw bearer tokens are never held in memory
+    private static String hashToken(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Entries live until the token expires, capped at the configured TTL
+    private record ClaimsExpiry(Duration maxTtl) implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long maxNanos = maxTtl.toNanos();
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return maxNanos;
+            }
+            long untilExpiry = Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(untilExpiry, maxNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     @FunctionalInterface
     public interface ClaimsResolver<T> {
         T resolve(Claims claims);
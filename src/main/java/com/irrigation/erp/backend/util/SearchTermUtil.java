@@ -0,0 +1,30 @@
+package com.irrigation.erp.backend.util;
+
+import java.util.Locale;
+
+public final class SearchTermUtil {
+
+    // Shorter terms have no trigram to look up and turn into a scan of the whole table
+    public static final int MIN_SEARCH_LENGTH = 3;
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 50;
+
+    private SearchTermUtil() {
+    }
+
+    // Normalise a typeahead term and clamp its limit, rejecting terms too short to search for
+    public static SearchTerm parse(String raw, Integer limit) {
+        String term = raw == null ? "" : raw.trim().toLowerCase(Locale.ROOT);
+        if (term.length() < MIN_SEARCH_LENGTH) {
+            throw new IllegalArgumentException("Search term must be at least " + MIN_SEARCH_LENGTH + " characters.");
+        }
+        int resultLimit = limit == null ? DEFAULT_SEARCH_LIMIT : Math.min(Math.max(limit, 1), MAX_SEARCH_LIMIT);
+
+        // LIKE wildcards in the term match themselves, the queries use the default backslash escape
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return new SearchTerm(term, "%" + escaped + "%", escaped + "%", resultLimit);
+    }
+
+    public record SearchTerm(String term, String containsPattern, String prefixPattern, int limit) {
+    }
+}
@@ -0,0 +1,26 @@
+-- Rebuilds material_distribution_monthly from the full issue history, once. Migrations run before the
+-- web server accepts requests, and the table lock holds back issue transactions from other nodes until
+-- this has committed, so no issue is counted twice or missed. See MaterialDistributionRollupService.
+-- Issuer and receiver both get the issue, once when they are the same user.
+DO $$
+BEGIN
+    IF to_regclass('inventory_issues') IS NOT NULL THEN
+        LOCK TABLE material_distribution_monthly IN EXCLUSIVE MODE;
+        DELETE FROM material_distribution_monthly;
+        INSERT INTO material_distribution_monthly (user_id, item_id, issue_month, quantity)
+        SELECT user_id, issued_item_id, issue_month, SUM(issued_quantity)
+        FROM (
+            SELECT issued_by_user_id AS user_id, issued_item_id,
+                   CAST(EXTRACT(YEAR FROM issued_at) * 100 + EXTRACT(MONTH FROM issued_at) AS integer) AS issue_month,
+                   issued_quantity
+            FROM inventory_issues
+            UNION ALL
+            SELECT issued_to_user_id, issued_item_id,
+                   CAST(EXTRACT(YEAR FROM issued_at) * 100 + EXTRACT(MONTH FROM issued_at) AS integer),
+                   issued_quantity
+            FROM inventory_issues
+            WHERE issued_to_user_id <> issued_by_user_id
+        ) issue_users
+        GROUP BY user_id, issued_item_id, issue_month;
+    END IF;
+END $$;
@@ -0,0 +1,16 @@
+-- Gives every item without an OPENING movement one, once, before the application serves requests.
+-- Anything already in the ledger for such an item was written after its last pre-ledger stock level, so
+-- the opening is whatever the movements do not explain. See StockLedgerService.
+DO $$
+BEGIN
+    IF to_regclass('inventory_items') IS NOT NULL THEN
+        LOCK TABLE stock_movements IN EXCLUSIVE MODE;
+        INSERT INTO stock_movements (item_id, movement_type, quantity, moved_at, note)
+        SELECT i.id, 'OPENING', i.current_stock_quantity - COALESCE(SUM(m.quantity), 0),
+               COALESCE(MIN(m.moved_at), LOCALTIMESTAMP), 'Stock on hand when the ledger started'
+        FROM inventory_items i
+        LEFT JOIN stock_movements m ON m.item_id = i.id
+        WHERE NOT EXISTS (SELECT 1 FROM stock_movements o WHERE o.item_id = i.id AND o.movement_type = 'OPENING')
+        GROUP BY i.id, i.current_stock_quantity;
+    END IF;
+END $$;
@@ -0,0 +1,2 @@
+-- Outbox events are claimed while they are being delivered and deleted afterwards, see DomainEventDispatcher.
+ALTER TABLE domain_event_outbox ADD COLUMN IF NOT EXISTS claimed_at TIMESTAMP(6);
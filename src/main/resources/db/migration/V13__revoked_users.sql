@@ -0,0 +1,6 @@
+-- Users deleted through UserService.deleteUser, written in the delete's transaction and read by
+-- DeactivatedUserService so every node keeps rejecting their tokens. No foreign key, the users row is gone.
+CREATE TABLE IF NOT EXISTS revoked_users (
+    user_id    BIGINT       PRIMARY KEY,
+    revoked_at TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,10 @@
+-- inventory_issues ids move from IDENTITY to a pooled sequence (allocationSize 50) so inserts can be batched.
+CREATE SEQUENCE IF NOT EXISTS inventory_issues_seq START WITH 1 INCREMENT BY 50;
+
+-- On an existing schema, start past every id handed out by the old identity column.
+DO $$
+BEGIN
+    IF to_regclass('inventory_issues') IS NOT NULL THEN
+        PERFORM setval('inventory_issues_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM inventory_issues));
+    END IF;
+END $$;
@@ -0,0 +1,10 @@
+-- Monthly issue totals per user and item (issue_month = yyyymm), read by the material-distribution table.
+-- Rows are upserted together with each inventory issue; earlier issue history is loaded once by V10.
+-- The item foreign key comes from the entity mapping, inventory_items may not exist yet on a fresh database.
+CREATE TABLE IF NOT EXISTS material_distribution_monthly (
+    user_id     BIGINT         NOT NULL,
+    item_id     BIGINT         NOT NULL,
+    issue_month INTEGER        NOT NULL,
+    quantity    NUMERIC(38, 2) NOT NULL,
+    PRIMARY KEY (user_id, item_id, issue_month)
+);
@@ -0,0 +1,21 @@
+-- Access paths for the issue lookups in InventoryIssueRepository: each filter column followed by the
+-- issued_at DESC, id DESC order the listings use, so rows come back pre-sorted from the index.
+-- The same indexes are declared on the InventoryIssue entity; on a fresh database the table does not
+-- exist yet when Flyway runs and the entity mapping creates them instead.
+DO $$
+BEGIN
+    IF to_regclass('inventory_issues') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_inventory_issues_to_user_issued_at
+            ON inventory_issues (issued_to_user_id, issued_at DESC, id DESC);
+        CREATE INDEX IF NOT EXISTS idx_inventory_issues_by_user_issued_at
+            ON inventory_issues (issued_by_user_id, issued_at DESC, id DESC);
+        CREATE INDEX IF NOT EXISTS idx_inventory_issues_item_issued_at
+            ON inventory_issues (issued_item_id, issued_at DESC, id DESC);
+        CREATE INDEX IF NOT EXISTS idx_inventory_issues_request_issued_at
+            ON inventory_issues (inventory_request_id, issued_at DESC, id DESC);
+        CREATE INDEX IF NOT EXISTS idx_inventory_issues_line_item
+            ON inventory_issues (inventory_request_line_item_id);
+        CREATE INDEX IF NOT EXISTS idx_inventory_issues_issued_at
+            ON inventory_issues (issued_at DESC, id DESC);
+    END IF;
+END $$;
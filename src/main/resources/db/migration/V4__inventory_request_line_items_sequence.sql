@@ -0,0 +1,12 @@
+-- inventory_request_line_items ids move from IDENTITY to a pooled sequence (allocationSize 50), so the lines of
+-- a new request are written as one JDBC batch.
+CREATE SEQUENCE IF NOT EXISTS inventory_request_line_items_seq START WITH 1 INCREMENT BY 50;
+
+-- Continue after the ids already taken by the identity column.
+DO $$
+BEGIN
+    IF to_regclass('inventory_request_line_items') IS NOT NULL THEN
+        PERFORM setval('inventory_request_line_items_seq',
+                       (SELECT COALESCE(MAX(id), 0) + 50 FROM inventory_request_line_items));
+    END IF;
+END $$;
@@ -0,0 +1,13 @@
+-- Trigram index behind GET /api/inventory/items/search. The expression must match
+-- InventoryItemRepository.SEARCH_DOCUMENT or the planner will not use it.
+-- On a fresh database the table does not exist yet; InventorySearchIndexContributor adds the index
+-- once Hibernate has created it.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DO $$
+BEGIN
+    IF to_regclass('inventory_items') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_inventory_items_search_trgm ON inventory_items
+            USING gin (lower(item_code || ' ' || item_name || ' ' || coalesce(item_description, '')) gin_trgm_ops);
+    END IF;
+END $$;
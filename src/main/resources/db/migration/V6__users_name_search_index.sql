@@ -0,0 +1,10 @@
+-- Trigram index behind GET /api/users/search. The expression must match
+-- UserRepository.NAME_SEARCH_DOCUMENT or the planner will not use it.
+-- pg_trgm is created by V5; on a fresh database UserSearchIndexContributor adds the index.
+DO $$
+BEGIN
+    IF to_regclass('users') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_users_name_search_trgm ON users
+            USING gin (lower(coalesce(first_name, '') || ' ' || coalesce(last_name, '')) gin_trgm_ops);
+    END IF;
+END $$;
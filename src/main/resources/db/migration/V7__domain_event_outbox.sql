@@ -0,0 +1,7 @@
+-- Domain events that found the dispatcher queue full, drained oldest first by DomainEventDispatcher.
+CREATE TABLE IF NOT EXISTS domain_event_outbox (
+    id         BIGSERIAL    PRIMARY KEY,
+    event_type VARCHAR(64)  NOT NULL,
+    payload    TEXT         NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
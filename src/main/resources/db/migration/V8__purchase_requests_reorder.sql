@@ -0,0 +1,19 @@
+-- purchase_requests and purchase_request_line_items ids move from IDENTITY to pooled sequences (allocationSize 50),
+-- so the drafts written by the reorder engine go out as JDBC batches.
+CREATE SEQUENCE IF NOT EXISTS purchase_requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS purchase_request_line_items_seq START WITH 1 INCREMENT BY 50;
+
+-- Continue after the ids already taken by the identity columns. Reorder lines point at an inventory item
+-- instead of an inventory request line.
+DO $$
+BEGIN
+    IF to_regclass('purchase_requests') IS NOT NULL THEN
+        PERFORM setval('purchase_requests_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM purchase_requests));
+    END IF;
+    IF to_regclass('purchase_request_line_items') IS NOT NULL THEN
+        PERFORM setval('purchase_request_line_items_seq',
+                       (SELECT COALESCE(MAX(id), 0) + 50 FROM purchase_request_line_items));
+        ALTER TABLE purchase_request_line_items ALTER COLUMN inventory_request_line_item_id DROP NOT NULL;
+        ALTER TABLE purchase_request_line_items ADD COLUMN IF NOT EXISTS inventory_item_id BIGINT;
+    END IF;
+END $$;
@@ -0,0 +1,32 @@
+-- Stock movement ledger and the per-item snapshots taken over it, see StockLedgerService.
+-- Items that predate the ledger get their OPENING movement once from the V11 migration.
+-- The item foreign keys come from the entity mappings, inventory_items may not exist yet on a fresh database.
+CREATE TABLE IF NOT EXISTS stock_movements (
+    id            BIGSERIAL      PRIMARY KEY,
+    item_id       BIGINT         NOT NULL,
+    movement_type VARCHAR(16)    NOT NULL,
+    quantity      NUMERIC(38, 2) NOT NULL,
+    moved_at      TIMESTAMP(6)   NOT NULL,
+    user_id       BIGINT,
+    reference_id  BIGINT,
+    note          TEXT
+);
+CREATE INDEX IF NOT EXISTS idx_stock_movements_item_id ON stock_movements (item_id, id);
+
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+    item_id          BIGINT         NOT NULL,
+    last_movement_id BIGINT         NOT NULL,
+    last_moved_at    TIMESTAMP(6)   NOT NULL,
+    quantity         NUMERIC(38, 2) NOT NULL,
+    taken_at         TIMESTAMP(6)   NOT NULL,
+    PRIMARY KEY (item_id, last_movement_id)
+);
+CREATE INDEX IF NOT EXISTS idx_stock_snapshots_item_moved_at ON stock_snapshots (item_id, last_moved_at);
+
+-- Receiving lines can name the inventory item they restock
+DO $$
+BEGIN
+    IF to_regclass('goods_receiving_item') IS NOT NULL THEN
+        ALTER TABLE goods_receiving_item ADD COLUMN IF NOT EXISTS inventory_item_id BIGINT;
+    END IF;
+END $$;
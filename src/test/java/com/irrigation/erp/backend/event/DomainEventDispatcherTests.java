@@ -0,0 +1,253 @@
+package com.irrigation.erp.backend.event;
+
+import com.irrigation.erp.backend.model.InventoryItem;
+import com.irrigation.erp.backend.model.ItemCategory;
+import com.irrigation.erp.backend.model.ItemType;
+import com.irrigation.erp.backend.model.User;
+import com.irrigation.erp.backend.service.InventoryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// One consumer thread and a one-slot queue, so the third event of a burst has to go to the outbox
+@ActiveProfiles("ci")
+@SpringBootTest
+@TestPropertySource(properties = {"app.events.threads=1", "app.events.queue-capacity=1"})
+@RecordApplicationEvents
+class DomainEventDispatcherTests {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DomainEventDispatcher dispatcher;
+
+    @Autowired
+    private RecordingConsumer recorder;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM domain_event_outbox");
+        recorder.started.clear();
+        recorder.received.clear();
+        recorder.gate = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void openGate() {
+        recorder.gate.countDown();
+    }
+
+    @Test
+    void eventsReachConsumersOnlyOnceTheirTransactionHasCommitted() throws InterruptedException {
+        recorder.gate.countDown();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(completed(1L));
+            assertThat(recorder.received).isEmpty();
+        });
+        assertThat(recorder.next()).isEqualTo(completed(1L));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(completed(2L));
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(completed(3L)));
+
+        // Single consumer thread: had the rolled back event been sent, it would arrive first
+        assertThat(recorder.next()).isEqualTo(completed(3L));
+        assertThat(meterRegistry.get(DomainEventDispatcher.CONSUMER_TIMER)
+                .tag("consumer", "RecordingConsumer").tag("event", "RequestCompleted").tag("outcome", "success")
+                .timer().count()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void aFullQueueOverflowsToTheOutboxWithoutBlockingThePublisher() throws InterruptedException {
+        double overflowBefore = meterRegistry.get(DomainEventDispatcher.OVERFLOW).counter().count();
+
+        eventPublisher.publishEvent(completed(10L));
+        assertThat(recorder.started.poll(10, TimeUnit.SECONDS)).isEqualTo(completed(10L));
+        eventPublisher.publishEvent(completed(11L));
+        eventPublisher.publishEvent(completed(12L));
+
+        assertThat(meterRegistry.get(DomainEventDispatcher.OVERFLOW).counter().count() - overflowBefore).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT event_type FROM domain_event_outbox", String.class))
+                .containsExactly("RequestCompleted");
+
+        recorder.gate.countDown();
+        assertThat(recorder.next()).isEqualTo(completed(10L));
+        assertThat(recorder.next()).isEqualTo(completed(11L));
+
+        dispatcher.drainOutbox();
+        assertThat(recorder.next()).isEqualTo(completed(12L));
+        awaitOutboxSize(0);
+    }
+
+    @Test
+    void aTransactionsOverflowIsWrittenOnceAndLeavesTheOutboxOnlyAfterDelivery() throws InterruptedException {
+        double overflowBefore = meterRegistry.get(DomainEventDispatcher.OVERFLOW).counter().count();
+        eventPublisher.publishEvent(completed(20L));
+        assertThat(recorder.started.poll(10, TimeUnit.SECONDS)).isEqualTo(completed(20L));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(completed(21L));
+            eventPublisher.publishEvent(completed(22L));
+            eventPublisher.publishEvent(completed(23L));
+        });
+        assertThat(meterRegistry.get(DomainEventDispatcher.OVERFLOW).counter().count() - overflowBefore).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT payload FROM domain_event_outbox ORDER BY id", String.class))
+                .satisfiesExactly(
+                        payload -> assertThat(payload).contains("\"requestId\":22"),
+                        payload -> assertThat(payload).contains("\"requestId\":23"));
+
+        recorder.gate.countDown();
+        assertThat(recorder.next()).isEqualTo(completed(20L));
+        assertThat(recorder.next()).isEqualTo(completed(21L));
+
+        // A claimed event stays in the outbox while its consumer runs
+        recorder.started.clear();
+        recorder.gate = new CountDownLatch(1);
+        dispatcher.drainOutbox();
+        assertThat(recorder.started.poll(10, TimeUnit.SECONDS)).isEqualTo(completed(22L));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM domain_event_outbox WHERE claimed_at IS NOT NULL",
+                Long.class)).isEqualTo(1);
+        // so a node that takes over after the claim has timed out delivers it again
+        jdbcTemplate.update("UPDATE domain_event_outbox SET claimed_at = claimed_at - INTERVAL '1 day' WHERE claimed_at IS NOT NULL");
+        dispatcher.drainOutbox();
+
+        recorder.gate.countDown();
+        assertThat(recorder.next()).isEqualTo(completed(22L));
+        assertThat(recorder.next()).isEqualTo(completed(22L));
+        awaitOutboxSize(1);
+        dispatcher.drainOutbox();
+        assertThat(recorder.next()).isEqualTo(completed(23L));
+        awaitOutboxSize(0);
+    }
+
+    @Test
+    @Transactional
+    void stockAdjustmentsPublishTheLevelLeftByTheDatabase() {
+        User user = new User();
+        user.setUsername("event-user");
+        user.setEmail("event-user@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        ItemCategory category = new ItemCategory(null, "event-category", null, "test");
+        entityManager.persist(category);
+        ItemType type = new ItemType(null, "event-type", null);
+        entityManager.persist(type);
+        InventoryItem item = new InventoryItem();
+        item.setItemCode("EVT-1");
+        item.setItemName("Event item");
+        item.setUnitOfMeasurement("pcs");
+        item.setItemCategory(category);
+        item.setItemType(type);
+        item.setCurrentStockQuantity(new BigDecimal("12"));
+        item.setMinimumStockLevel(new BigDecimal("10"));
+        item.setUnitPrice(BigDecimal.ONE);
+        item.setCreatingUser(user);
+        item.setPendingPurchaseRequest(false);
+        entityManager.persist(item);
+
+        inventoryService.adjustStock(item.getId(), new BigDecimal("-3"), user.getId(), "damaged");
+        inventoryService.adjustStock(item.getId(), new BigDecimal("-1"), user.getId(), "damaged");
+
+        assertThat(applicationEvents.stream(StockAdjusted.class))
+                .extracting(StockAdjusted::stockAfter, StockAdjusted::reason, StockChange::crossedMinimum)
+                .containsExactly(
+                        tuple(new BigDecimal("9.00"), "damaged", true),
+                        tuple(new BigDecimal("8.00"), "damaged", false));
+    }
+
+    // Consumer threads delete delivered outbox rows after the consumers return
+    private void awaitOutboxSize(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM domain_event_outbox", Long.class) != expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM domain_event_outbox", Long.class)).isEqualTo(expected);
+    }
+
+    private static RequestCompleted completed(Long requestId) {
+        return new RequestCompleted(requestId, 1L, 2L, LocalDateTime.of(2025, 3, 31, 12, 0));
+    }
+
+    static class RecordingConsumer implements DomainEventConsumer<DomainEvent> {
+
+        final BlockingQueue<DomainEvent> started = new LinkedBlockingQueue<>();
+        final BlockingQueue<DomainEvent> received = new LinkedBlockingQueue<>();
+        volatile CountDownLatch gate = new CountDownLatch(1);
+
+        @Override
+        public Class<DomainEvent> eventType() {
+            return DomainEvent.class;
+        }
+
+        @Override
+        public void accept(DomainEvent event) {
+            started.add(event);
+            try {
+                gate.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(event);
+        }
+
+        DomainEvent next() throws InterruptedException {
+            return received.poll(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @TestConfiguration
+    static class Consumers {
+
+        @Bean
+        RecordingConsumer recordingConsumer() {
+            return new RecordingConsumer();
+        }
+    }
+}
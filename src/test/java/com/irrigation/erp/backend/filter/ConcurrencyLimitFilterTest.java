@@ -0,0 +1,98 @@
+package com.irrigation.erp.backend.filter;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private final HikariDataSource dataSource = new HikariDataSource();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        dataSource.close();
+    }
+
+    @Test
+    void permitsDefaultToTheConnectionPoolSize() throws Exception {
+        dataSource.setMaximumPoolSize(7);
+
+        assertThat(new ConcurrencyLimitFilter(dataSource, 0, Duration.ofMillis(50)).getMaxConcurrent()).isEqualTo(7);
+        assertThat(new ConcurrencyLimitFilter(dataSource, 3, Duration.ofMillis(50)).getMaxConcurrent()).isEqualTo(3);
+    }
+
+    @Test
+    void requestsBeyondTheLimitGet503UntilAPermitIsReturned() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(dataSource, 1, Duration.ofMillis(50));
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch leave = new CountDownLatch(1);
+        FilterChain blocking = (request, response) -> {
+            inside.countDown();
+            try {
+                leave.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        Future<?> slow = executor.submit(() -> {
+            filter.doFilter(api(), new MockHttpServletResponse(), blocking);
+            return null;
+        });
+        assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(api(), rejected, new MockFilterChain());
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+
+        MockHttpServletResponse outsideApi = new MockHttpServletResponse();
+        MockHttpServletRequest actuator = new MockHttpServletRequest("GET", "/actuator/health");
+        filter.doFilter(actuator, outsideApi, new MockFilterChain());
+        assertThat(outsideApi.getStatus()).isEqualTo(200);
+
+        leave.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        filter.doFilter(api(), accepted, new MockFilterChain());
+        assertThat(accepted.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void asyncRequestsHoldTheirPermitUntilCompletion() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(dataSource, 1, Duration.ofMillis(50));
+        MockHttpServletRequest streaming = api();
+        streaming.setAsyncSupported(true);
+
+        filter.doFilter(streaming, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        MockHttpServletResponse whileStreaming = new MockHttpServletResponse();
+        filter.doFilter(api(), whileStreaming, new MockFilterChain());
+        assertThat(whileStreaming.getStatus()).isEqualTo(503);
+
+        ((MockAsyncContext) streaming.getAsyncContext()).complete();
+        MockHttpServletResponse afterStreaming = new MockHttpServletResponse();
+        filter.doFilter(api(), afterStreaming, new MockFilterChain());
+        assertThat(afterStreaming.getStatus()).isEqualTo(200);
+    }
+
+    private static MockHttpServletRequest api() {
+        return new MockHttpServletRequest("GET", "/api/inventory/issues/all");
+    }
+}
@@ -0,0 +1,127 @@
+package com.irrigation.erp.backend.filter;
+
+import com.irrigation.erp.backend.dto.AuthenticatedUser;
+import com.irrigation.erp.backend.repository.UserRepository;
+import com.irrigation.erp.backend.service.DeactivatedUserService;
+import com.irrigation.erp.backend.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private JwtUtil jwtUtil;
+    private UserRepository userRepository;
+    private DeactivatedUserService deactivatedUserService;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "testSecretKey12345678901234567890123456789012345678901234567890");
+        ReflectionTestUtils.setField(jwtUtil, "tokenExpiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheTtl", Duration.ofMinutes(5));
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findInactiveUserIds()).thenReturn(List.of(13L));
+        when(userRepository.findDeletedUserIds()).thenReturn(List.of(34L));
+        deactivatedUserService = new DeactivatedUserService(userRepository);
+        deactivatedUserService.reload();
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "deactivatedUserService", deactivatedUserService);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesFromClaimsWithRoleAuthority() throws Exception {
+        filter.doFilter(requestWithToken(jwtUtil.generateToken("keeper@example.com", "keeper", "STOREKEEPER", 7L)),
+                new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getName()).isEqualTo("keeper@example.com");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_STOREKEEPER");
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        assertThat(principal.getUserId()).isEqualTo(7L);
+        assertThat(principal.getUsername()).isEqualTo("keeper");
+        // Only the startup reload touched the repository
+        verify(userRepository).findInactiveUserIds();
+        verify(userRepository).findDeletedUserIds();
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void rejectsTokensOfDeactivatedAndDeletedUsers() throws Exception {
+        filter.doFilter(requestWithToken(jwtUtil.generateToken("off@example.com", "off", "IE", 13L)),
+                new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+
+        String token = jwtUtil.generateToken("gone@example.com", "gone", "IE", 21L);
+        deactivatedUserService.markDeleted(21L);
+        deactivatedUserService.reload();
+        filter.doFilter(requestWithToken(token), new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+
+        deactivatedUserService.markActive(13L);
+        filter.doFilter(requestWithToken(jwtUtil.generateToken("off@example.com", "off", "IE", 13L)),
+                new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+    }
+
+    @Test
+    void rejectsTokensOfUsersDeletedElsewhereAndTokensWithoutUserId() throws Exception {
+        filter.doFilter(requestWithToken(jwtUtil.generateToken("removed@example.com", "removed", "IE", 34L)),
+                new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+
+        filter.doFilter(requestWithToken(jwtUtil.generateToken("anonymous@example.com", "anonymous", "IE", null)),
+                new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(deactivatedUserService.isRevoked(null)).isTrue();
+    }
+
+    @Test
+    void statusChangesMadeDuringReloadSurviveIt() {
+        // The query result predates both changes
+        when(userRepository.findInactiveUserIds()).thenAnswer(invocation -> {
+            deactivatedUserService.markDeactivated(55L);
+            deactivatedUserService.markActive(13L);
+            return List.of(13L);
+        });
+        deactivatedUserService.reload();
+
+        assertThat(deactivatedUserService.isRevoked(55L)).isTrue();
+        assertThat(deactivatedUserService.isRevoked(13L)).isFalse();
+    }
+
+    private MockHttpServletRequest requestWithToken(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/inventory/all");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,179 @@
+package com.irrigation.erp.backend.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Plan regression guard for the InventoryIssueRepository lookups: seeds a few thousand issues, refreshes the
+// planner statistics and checks each hot query is answered from its index instead of a sequential scan.
+// The SQL explained is what Hibernate sent for the repository call, bound to ids that were seeded.
+// Everything, including the ANALYZE, is rolled back with the test transaction.
+@ActiveProfiles("ci")
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.irrigation.erp.backend.repository.InventoryIssueQueryPlanTests$CapturedStatements")
+class InventoryIssueQueryPlanTests {
+
+    private static final int USERS = 100;
+    private static final int ITEMS = 100;
+    private static final int REQUESTS = 2000;
+    private static final int ISSUES = 20000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventoryIssueRepository inventoryIssueRepository;
+
+    private Seeded seeded;
+
+    @BeforeEach
+    void seed() {
+        long categoryId = jdbcTemplate.queryForObject(
+                "INSERT INTO item_categories (name, created_by) VALUES ('plan-category', 'test') RETURNING id", Long.class);
+        long typeId = jdbcTemplate.queryForObject(
+                "INSERT INTO item_types (name) VALUES ('plan-type') RETURNING id", Long.class);
+
+        List<Long> userIds = jdbcTemplate.queryForList("""
+                INSERT INTO users (username, email, password, is_active, must_change_password, created_at)
+                SELECT 'plan-user-' || g, 'plan-user-' || g || '@example.com', 'secret', true, false, now()
+                FROM generate_series(1, ?) g
+                RETURNING id
+                """, Long.class, USERS);
+
+        List<Long> itemIds = jdbcTemplate.queryForList("""
+                INSERT INTO inventory_items (item_code, item_name, unit_of_measurement, current_stock_quantity,
+                    minimum_stock_level, unit_price, is_active, pending_purchase_request,
+                    created_by_user_id, item_category_id, item_type_id)
+                SELECT 'PLAN-' || g, 'Plan item ' || g, 'pcs', 100, 1, 1, true, false, ?, ?, ?
+                FROM generate_series(1, ?) g
+                RETURNING id
+                """, Long.class, userIds.get(0), categoryId, typeId, ITEMS);
+
+        // Ids are picked from the seeded lists by position, none of the sequences is assumed to hand out
+        // consecutive values. Joining the unnested list keeps the array from being read again for every row
+        List<Long> requestIds = jdbcTemplate.queryForList("""
+                INSERT INTO inventory_requests (requester_user_id, requested_at, status)
+                SELECT u.id, now(), 'PENDING'
+                FROM generate_series(1, ?) g
+                JOIN unnest(CAST(? AS bigint[])) WITH ORDINALITY AS u(id, n) ON u.n = 1 + g % ?
+                RETURNING id
+                """, Long.class, REQUESTS, idArray(userIds), USERS);
+
+        // One line item per issue, each request gets ISSUES / REQUESTS of them
+        List<Long> lineItemIds = jdbcTemplate.queryForList("""
+                INSERT INTO inventory_request_line_items (id, inventory_request_id, inventory_item_id, requested_quantity, status)
+                SELECT nextval('inventory_request_line_items_seq'), r.id, i.id, 1, 'ISSUED'
+                FROM generate_series(0, ? - 1) g
+                JOIN unnest(CAST(? AS bigint[])) WITH ORDINALITY AS r(id, n) ON r.n = 1 + g % ?
+                JOIN unnest(CAST(? AS bigint[])) WITH ORDINALITY AS i(id, n) ON i.n = 1 + g % ?
+                ORDER BY g
+                RETURNING id
+                """, Long.class, ISSUES, idArray(requestIds), REQUESTS, idArray(itemIds), ITEMS);
+
+        jdbcTemplate.update("""
+                INSERT INTO inventory_issues (id, inventory_request_line_item_id, inventory_request_id, issued_item_id,
+                    issued_by_user_id, issued_to_user_id, issued_quantity, item_value, issued_at)
+                SELECT nextval('inventory_issues_seq'), l.id, l.inventory_request_id, l.inventory_item_id,
+                    u.id, r.requester_user_id, 1, 1, now() - (seeded.n % 365) * interval '1 day'
+                FROM unnest(CAST(? AS bigint[])) WITH ORDINALITY AS seeded(id, n)
+                JOIN inventory_request_line_items l ON l.id = seeded.id
+                JOIN inventory_requests r ON r.id = l.inventory_request_id
+                JOIN unnest(CAST(? AS bigint[])) WITH ORDINALITY AS u(id, n) ON u.n = 1 + (seeded.n * 7) % ?
+                """, idArray(lineItemIds), idArray(userIds), USERS);
+
+        // Every seeded table, stale estimates on the joined ones change the join order
+        jdbcTemplate.execute("ANALYZE users, inventory_items, inventory_requests, inventory_request_line_items, inventory_issues");
+        seeded = new Seeded(userIds.get(3), itemIds.get(3), requestIds.get(3), lineItemIds.get(3));
+    }
+
+    static Stream<Arguments> hotIssueLookups() {
+        return Stream.of(
+                lookup("findIssueDTOsByIssuedToUserId", InventoryIssueRepository::findIssueDTOsByIssuedToUserId,
+                        Seeded::userId, "idx_inventory_issues_to_user_issued_at"),
+                lookup("findIssueDTOsByIssuedByUserId", InventoryIssueRepository::findIssueDTOsByIssuedByUserId,
+                        Seeded::userId, "idx_inventory_issues_by_user_issued_at"),
+                lookup("findIssueDTOsByItemId", InventoryIssueRepository::findIssueDTOsByItemId,
+                        Seeded::itemId, "idx_inventory_issues_item_issued_at"),
+                lookup("findIssueDTOsByRequestId", InventoryIssueRepository::findIssueDTOsByRequestId,
+                        Seeded::requestId, "idx_inventory_issues_request_issued_at"),
+                lookup("sumIssuedQuantityByRequestLineItemId", InventoryIssueRepository::sumIssuedQuantityByRequestLineItemId,
+                        Seeded::lineItemId, "idx_inventory_issues_line_item"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotIssueLookups")
+    void hotIssueLookupsUseTheirIndex(String repositoryMethod, BiFunction<InventoryIssueRepository, Long, Object> call,
+                                      Function<Seeded, Long> id, String expectedIndex) {
+        Long boundId = id.apply(seeded);
+        Object[] result = new Object[1];
+        List<String> statements = CapturedStatements.during(() -> result[0] = call.apply(inventoryIssueRepository, boundId));
+        // The id was seeded, so the lookup finds something
+        assertThat(result[0]).as(repositoryMethod).isNotIn(List.of(), 0.0);
+        assertThat(statements).as(repositoryMethod).hasSize(1);
+        String sql = statements.get(0);
+        assertThat(sql.chars().filter(c -> c == '?').count()).as(sql).isEqualTo(1);
+
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, boundId));
+
+        assertThat(plan).as(repositoryMethod)
+                .doesNotContain("Seq Scan on inventory_issues")
+                .contains(expectedIndex);
+    }
+
+    private static Arguments lookup(String repositoryMethod, BiFunction<InventoryIssueRepository, Long, ?> call,
+                                    Function<Seeded, Long> id, String expectedIndex) {
+        return Arguments.of(repositoryMethod, call, id, expectedIndex);
+    }
+
+    private static String idArray(List<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+    }
+
+    record Seeded(Long userId, Long itemId, Long requestId, Long lineItemId) {
+    }
+
+    // Registered through the statement_inspector property, records the SQL the calling thread sends
+    public static class CapturedStatements implements StatementInspector {
+
+        private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+        static List<String> during(Runnable call) {
+            List<String> statements = new ArrayList<>();
+            CAPTURED.set(statements);
+            try {
+                call.run();
+            } finally {
+                CAPTURED.remove();
+            }
+            return statements;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = CAPTURED.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+}
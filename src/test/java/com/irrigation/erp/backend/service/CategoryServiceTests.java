@@ -0,0 +1,187 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.config.CacheConfig;
+import com.irrigation.erp.backend.dto.CategoryWithCountDTO;
+import com.irrigation.erp.backend.model.InventoryItem;
+import com.irrigation.erp.backend.model.ItemCategory;
+import com.irrigation.erp.backend.model.ItemType;
+import com.irrigation.erp.backend.model.User;
+import com.irrigation.erp.backend.repository.ItemCategoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ActiveProfiles("ci")
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CategoryServiceTests {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemCategoryRepository itemCategoryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void countsItemsAndLowStockPerCategoryAndRefreshesAfterStockChanges() {
+        User user = new User();
+        user.setUsername("cat-count-user");
+        user.setEmail("cat-count-user@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        ItemType type = new ItemType(null, "cat-count-type", null);
+        entityManager.persist(type);
+        ItemCategory stocked = new ItemCategory(null, "cat-count-stocked", null, "test");
+        entityManager.persist(stocked);
+        ItemCategory empty = new ItemCategory(null, "cat-count-empty", null, "test");
+        entityManager.persist(empty);
+
+        InventoryItem good = item("CC-1", stocked, type, user, BigDecimal.TEN);
+        item("CC-2", stocked, type, user, BigDecimal.ONE);
+        item("CC-3", stocked, type, user, BigDecimal.ZERO);
+        entityManager.flush();
+
+        assertThat(countsFor(stocked)).extracting(CategoryWithCountDTO::getItemCount, CategoryWithCountDTO::getLowStockCount)
+                .containsExactly(3L, 2L);
+        assertThat(countsFor(empty)).extracting(CategoryWithCountDTO::getItemCount, CategoryWithCountDTO::getLowStockCount)
+                .containsExactly(0L, 0L);
+
+        inventoryService.adjustStock(good.getId(), new BigDecimal("-9"), user.getId(), "test");
+        entityManager.flush();
+
+        assertThat(countsFor(stocked).getLowStockCount()).isEqualTo(3L);
+    }
+
+    // Committed data only: rows written by an open transaction are kept out of the cache until it commits
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void nameLookupsComeFromTheSecondLevelCacheAndFollowRenames() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        ItemCategory category = categoryService.addCategory(new ItemCategory(null, "l2-category", null, "test"));
+        try {
+            categoryService.getCategoryByName("l2-category");
+
+            statistics.clear();
+            assertThat(categoryService.getCategoryByName("l2-category").getId()).isEqualTo(category.getId());
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+            assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+
+            categoryService.updateCategory(category.getId(), "l2-renamed", null, "test");
+
+            assertThat(categoryService.getCategoryByName("l2-renamed").getId()).isEqualTo(category.getId());
+            assertThatThrownBy(() -> categoryService.getCategoryByName("l2-category"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            itemCategoryRepository.deleteById(category.getId());
+        }
+    }
+
+    // A listing read while a stock change is still uncommitted sees the old counts; the eviction has to wait
+    // for the commit or that read would keep them cached
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void countsReadBeforeAStockChangeCommitsAreNotKeptAfterIt() throws Exception {
+        User user = new User();
+        ItemType type = new ItemType(null, "cat-tx-type", null);
+        ItemCategory category = new ItemCategory(null, "cat-tx-category", null, "test");
+        InventoryItem good = transactionTemplate.execute(status -> {
+            user.setUsername("cat-tx-user");
+            user.setEmail("cat-tx-user@example.com");
+            user.setPassword("secret");
+            entityManager.persist(user);
+            entityManager.persist(type);
+            entityManager.persist(category);
+            return item("CC-TX-1", category, type, user, BigDecimal.TEN);
+        });
+        cacheManager.getCache(CacheConfig.CATEGORY_COUNTS).clear();
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            assertThat(countsFor(category).getLowStockCount()).isZero();
+
+            transactionTemplate.executeWithoutResult(status -> {
+                inventoryService.adjustStock(good.getId(), new BigDecimal("-10"), user.getId(), "test");
+                entityManager.flush();
+                CategoryWithCountDTO uncommitted;
+                try {
+                    uncommitted = reader.submit(() -> countsFor(category)).get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                assertThat(uncommitted.getLowStockCount()).isZero();
+            });
+
+            assertThat(countsFor(category).getLowStockCount()).isEqualTo(1L);
+        } finally {
+            reader.shutdownNow();
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.createQuery("DELETE FROM StockMovement m WHERE m.item.id = :itemId")
+                        .setParameter("itemId", good.getId()).executeUpdate();
+                entityManager.createQuery("DELETE FROM InventoryItem i WHERE i.id = :itemId")
+                        .setParameter("itemId", good.getId()).executeUpdate();
+                entityManager.createQuery("DELETE FROM ItemCategory c WHERE c.id = :id")
+                        .setParameter("id", category.getId()).executeUpdate();
+                entityManager.createQuery("DELETE FROM ItemType t WHERE t.id = :id")
+                        .setParameter("id", type.getId()).executeUpdate();
+                entityManager.createQuery("DELETE FROM User u WHERE u.id = :id")
+                        .setParameter("id", user.getId()).executeUpdate();
+            });
+        }
+    }
+
+    private CategoryWithCountDTO countsFor(ItemCategory category) {
+        return categoryService.getAllCategoriesWithCounts().stream()
+                .filter(dto -> dto.getId().equals(category.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private InventoryItem item(String itemCode, ItemCategory category, ItemType type, User user, BigDecimal quantity) {
+        InventoryItem item = new InventoryItem();
+        item.setItemCode(itemCode);
+        item.setItemName("Category count item " + itemCode);
+        item.setUnitOfMeasurement("pcs");
+        item.setItemCategory(category);
+        item.setItemType(type);
+        item.setCurrentStockQuantity(quantity);
+        item.setMinimumStockLevel(BigDecimal.ONE);
+        item.setUnitPrice(BigDecimal.ONE);
+        item.setCreatingUser(user);
+        item.setPendingPurchaseRequest(false);
+        entityManager.persist(item);
+        return item;
+    }
+}
@@ -0,0 +1,159 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.dto.InventoryIssueResponseDTO;
+import com.irrigation.erp.backend.enums.RequestLineItemStatus;
+import com.irrigation.erp.backend.enums.RequestStatus;
+import com.irrigation.erp.backend.model.InventoryIssue;
+import com.irrigation.erp.backend.model.InventoryItem;
+import com.irrigation.erp.backend.model.InventoryRequest;
+import com.irrigation.erp.backend.model.InventoryRequestLineItem;
+import com.irrigation.erp.backend.model.ItemCategory;
+import com.irrigation.erp.backend.model.ItemType;
+import com.irrigation.erp.backend.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("ci")
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class InventoryIssueQueryCountTests {
+
+    @Autowired
+    private InventoryIssueService inventoryIssueService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private ItemCategory category;
+    private User receiver;
+    private User storeKeeper;
+    private InventoryIssue lastIssue;
+    private int seeded;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        category = persist(new ItemCategory(null, "iqc-category", null, "test"));
+        receiver = persist(user("iqc-receiver"));
+        storeKeeper = persist(user("iqc-keeper"));
+    }
+
+    @Test
+    void issueListingsRunAFixedNumberOfStatements() {
+        seedIssues(3);
+        long all = statementsFor(() -> inventoryIssueService.getAllIssues());
+        long issuedTo = statementsFor(() -> inventoryIssueService.getIssuesByUserId(receiver.getId()));
+        long issuedBy = statementsFor(() -> inventoryIssueService.getIssuesByIssuedByUserId(storeKeeper.getId()));
+        long related = statementsFor(() -> inventoryIssueService.getIssuesRelatedToUserPage(receiver.getId(), null, 50));
+
+        seedIssues(20);
+        assertThat(statementsFor(() -> inventoryIssueService.getAllIssues())).isEqualTo(all).isEqualTo(1);
+        assertThat(statementsFor(() -> inventoryIssueService.getIssuesByUserId(receiver.getId()))).isEqualTo(issuedTo).isEqualTo(1);
+        assertThat(statementsFor(() -> inventoryIssueService.getIssuesByIssuedByUserId(storeKeeper.getId()))).isEqualTo(issuedBy).isEqualTo(1);
+        assertThat(statementsFor(() -> inventoryIssueService.getIssuesRelatedToUserPage(receiver.getId(), null, 50))).isEqualTo(related).isEqualTo(2);
+
+        Long itemId = lastIssue.getIssuedItem().getId();
+        assertThat(statementsFor(() -> inventoryIssueService.getIssuesByRequestId(lastIssue.getInventoryRequest().getId()))).isEqualTo(1);
+        assertThat(statementsFor(() -> inventoryIssueService.getIssueHistoryByItemId(itemId))).isEqualTo(2);
+        assertThat(statementsFor(() -> inventoryIssueService.getIssueHistoryByItemCode(lastIssue.getIssuedItem().getItemCode()))).isEqualTo(2);
+    }
+
+    @Test
+    void issueListingsAreFlattenedFromTheJoinedRow() {
+        seedIssues(1);
+
+        List<InventoryIssueResponseDTO> issues = inventoryIssueService.getIssuesByRequestId(lastIssue.getInventoryRequest().getId());
+
+        assertThat(issues).singleElement().satisfies(dto -> {
+            assertThat(dto.getIssuedItemCode()).isEqualTo(lastIssue.getIssuedItem().getItemCode());
+            assertThat(dto.getItemType()).isEqualTo(lastIssue.getIssuedItem().getItemType().getName());
+            assertThat(dto.getIssuedByUsername()).isEqualTo("iqc-keeper");
+            assertThat(dto.getIssuedToUsername()).isEqualTo("iqc-receiver");
+            assertThat(dto.getRequestCode()).isEqualTo("REQ-" + lastIssue.getInventoryRequest().getId());
+            assertThat(dto.getRequestedQuantity()).isEqualByComparingTo("2");
+        });
+    }
+
+    private long statementsFor(Supplier<?> listing) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        listing.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    // Every issue gets its own item, type, request and line item so lazy loading would cost extra selects per row
+    private void seedIssues(int count) {
+        for (int i = 0; i < count; i++) {
+            int n = seeded++;
+            InventoryItem item = new InventoryItem();
+            item.setItemCode("IQC-" + n);
+            item.setItemName("Issue query count item " + n);
+            item.setUnitOfMeasurement("pcs");
+            item.setItemCategory(category);
+            item.setItemType(persist(new ItemType(null, "iqc-type-" + n, null)));
+            item.setCurrentStockQuantity(BigDecimal.TEN);
+            item.setMinimumStockLevel(BigDecimal.ONE);
+            item.setUnitPrice(BigDecimal.ONE);
+            item.setCreatingUser(storeKeeper);
+            item.setPendingPurchaseRequest(false);
+            persist(item);
+
+            InventoryRequest request = new InventoryRequest();
+            request.setRequester(receiver);
+            request.setStatus(RequestStatus.ISSUED);
+            request.setRequestedAt(LocalDateTime.now());
+            InventoryRequestLineItem lineItem = new InventoryRequestLineItem();
+            lineItem.setRequestedItem(item);
+            lineItem.setRequestedQuantity(new BigDecimal("2"));
+            lineItem.setStatus(RequestLineItemStatus.ISSUED);
+            request.addLineItem(lineItem);
+            persist(request);
+
+            InventoryIssue issue = new InventoryIssue();
+            issue.setInventoryRequest(request);
+            issue.setRequestLineItem(lineItem);
+            issue.setIssuedItem(item);
+            issue.setIssuedQuantity(new BigDecimal("2"));
+            issue.setItemValue(new BigDecimal("2"));
+            issue.setIssuedByUser(storeKeeper);
+            issue.setIssuedToUser(receiver);
+            issue.setIssuedAt(LocalDateTime.now());
+            lastIssue = persist(issue);
+        }
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret");
+        return user;
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+}
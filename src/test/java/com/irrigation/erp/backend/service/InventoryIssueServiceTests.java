@@ -0,0 +1,219 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.dto.BatchIssueItemDTO;
+import com.irrigation.erp.backend.dto.BatchIssueRequestDTO;
+import com.irrigation.erp.backend.dto.CursorPageResponseDTO;
+import com.irrigation.erp.backend.dto.InventoryIssueResponseDTO;
+import com.irrigation.erp.backend.dto.OtherDistributionsResponseDTO;
+import com.irrigation.erp.backend.enums.IssueExportFormat;
+import com.irrigation.erp.backend.enums.RequestLineItemStatus;
+import com.irrigation.erp.backend.enums.RequestStatus;
+import com.irrigation.erp.backend.model.InventoryItem;
+import com.irrigation.erp.backend.model.InventoryRequest;
+import com.irrigation.erp.backend.model.InventoryRequestLineItem;
+import com.irrigation.erp.backend.model.ItemCategory;
+import com.irrigation.erp.backend.model.ItemType;
+import com.irrigation.erp.backend.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+@ActiveProfiles("ci")
+@SpringBootTest
+@Transactional
+class InventoryIssueServiceTests {
+
+    @Autowired
+    private InventoryRequestService inventoryRequestService;
+
+    @Autowired
+    private InventoryIssueService inventoryIssueService;
+
+    @Autowired
+    private IssueExportService issueExportService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+    private ItemCategory category;
+    private ItemType type;
+    private int seeded;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("issue-user");
+        user.setEmail("issue-user@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        category = new ItemCategory(null, "issue-category", null, "test");
+        entityManager.persist(category);
+        type = new ItemType(null, "issue-type", null);
+        entityManager.persist(type);
+    }
+
+    @Test
+    void otherDistributionsArePagedByRequestAndOnlyListIssuedItems() {
+        type = entityManager.createQuery("SELECT t FROM ItemType t WHERE t.name = 'Non Materials'", ItemType.class)
+                .getResultStream()
+                .findFirst()
+                .orElseGet(() -> {
+                    ItemType nonMaterials = new ItemType(null, "Non Materials", null);
+                    entityManager.persist(nonMaterials);
+                    return nonMaterials;
+                });
+        InventoryRequest older = seedRequest(2);
+        InventoryRequest newer = seedRequest(1);
+        inventoryRequestService.issueBatchItems(batchFor(older));
+        inventoryRequestService.issueBatchItems(batchFor(newer));
+        entityManager.flush();
+        LocalDate today = LocalDate.now();
+
+        OtherDistributionsResponseDTO first = inventoryIssueService.getOtherDistributionsByUserId(user.getId(), today, today, 0, 1);
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(first.getDistributions()).singleElement().satisfies(record -> {
+            assertThat(record.getIssueNumber()).isEqualTo("REQ-" + newer.getId());
+            assertThat(record.getItemQuantities()).containsOnly(
+                    entry(newer.getLineItems().get(0).getRequestedItem().getItemName(), 2));
+        });
+        assertThat(first.getItemHeaders()).containsExactly(newer.getLineItems().get(0).getRequestedItem().getItemName());
+
+        OtherDistributionsResponseDTO second = inventoryIssueService.getOtherDistributionsByUserId(user.getId(), today, today, 1, 1);
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getDistributions()).singleElement().satisfies(record -> {
+            assertThat(record.getIssueNumber()).isEqualTo("REQ-" + older.getId());
+            assertThat(record.getItemQuantities()).hasSize(2).containsValues(2);
+        });
+        assertThat(second.getItemHeaders()).containsExactlyElementsOf(older.getLineItems().stream()
+                .map(lineItem -> lineItem.getRequestedItem().getItemName()).sorted().toList());
+
+        assertThat(inventoryIssueService.getOtherDistributionsByUserId(user.getId(), today.plusDays(1), null, null, null)
+                .getDistributions()).isEmpty();
+    }
+
+    @Test
+    void relatedIssuesFeedPagesAcrossIssuedToAndIssuedByWithoutDuplicates() {
+        User receiver = new User();
+        receiver.setUsername("related-receiver");
+        receiver.setEmail("related-receiver@example.com");
+        receiver.setPassword("secret");
+        entityManager.persist(receiver);
+        InventoryRequest forReceiver = seedRequest(2);
+        forReceiver.setRequester(receiver);
+        InventoryRequest forSelf = seedRequest(1);
+        inventoryRequestService.issueBatchItems(batchFor(forReceiver));
+        inventoryRequestService.issueBatchItems(batchFor(forSelf));
+        entityManager.flush();
+
+        CursorPageResponseDTO<InventoryIssueResponseDTO> first = inventoryIssueService.getIssuesRelatedToUserPage(user.getId(), null, 2);
+        assertThat(first.isHasNext()).isTrue();
+        CursorPageResponseDTO<InventoryIssueResponseDTO> second = inventoryIssueService.getIssuesRelatedToUserPage(user.getId(), first.getNextCursor(), 2);
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+
+        List<InventoryIssueResponseDTO> feed = new ArrayList<>(first.getItems());
+        feed.addAll(second.getItems());
+        assertThat(feed).extracting(InventoryIssueResponseDTO::getId).hasSize(3).doesNotHaveDuplicates();
+        assertThat(feed).isSortedAccordingTo(Comparator.comparing(InventoryIssueResponseDTO::getIssuedAt)
+                .thenComparing(InventoryIssueResponseDTO::getId).reversed());
+
+        assertThat(inventoryIssueService.getIssuesRelatedToUserPage(receiver.getId(), null, null).getItems())
+                .extracting(InventoryIssueResponseDTO::getIssuedToUserId)
+                .containsExactly(receiver.getId(), receiver.getId());
+        assertThatThrownBy(() -> inventoryIssueService.getIssuesRelatedToUserPage(user.getId(), "not-a-cursor", 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void exportStreamsFilteredIssuesAsNdjsonAndCsv() throws Exception {
+        InventoryRequest request = seedRequest(2);
+        request.getLineItems().get(0).getRequestedItem().setItemName("=cmd, \"quoted\"");
+        inventoryRequestService.issueBatchItems(batchFor(request));
+        entityManager.flush();
+        Long itemId = request.getLineItems().get(0).getRequestedItem().getId();
+        LocalDate today = LocalDate.now();
+
+        String ndjson = export(today, today, itemId, IssueExportFormat.NDJSON);
+        assertThat(ndjson.lines()).singleElement().satisfies(line -> assertThat(line)
+                .contains("\"issuedItemId\":" + itemId)
+                .contains("\"requestCode\":\"REQ-" + request.getId() + "\""));
+
+        List<String> csv = export(today, today, itemId, IssueExportFormat.CSV).lines().toList();
+        assertThat(csv).hasSize(2);
+        assertThat(csv.get(0)).isEqualTo(IssueExportService.CSV_HEADER);
+        assertThat(csv.get(1)).contains("\"'=cmd, \"\"quoted\"\"\"");
+
+        assertThat(export(today.plusDays(1), null, itemId, IssueExportFormat.NDJSON)).isEmpty();
+        assertThatThrownBy(() -> issueExportService.exportIssues(today, today.minusDays(1), null, IssueExportFormat.CSV))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String export(LocalDate from, LocalDate to, Long itemId, IssueExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        issueExportService.exportIssues(from, to, itemId, format).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private BatchIssueRequestDTO batchFor(InventoryRequest request) {
+        BatchIssueRequestDTO batch = new BatchIssueRequestDTO();
+        batch.setIssuedByUserId(user.getId());
+        batch.setIssueNotes("issue test");
+        batch.setItemsToIssue(request.getLineItems().stream().map(lineItem -> {
+            BatchIssueItemDTO line = new BatchIssueItemDTO();
+            line.setInventoryRequestLineItemId(lineItem.getId());
+            line.setIssuedQuantity(new BigDecimal("2"));
+            return line;
+        }).collect(Collectors.toList()));
+        return batch;
+    }
+
+    // One request whose lines each point at their own item with 10 in stock
+    private InventoryRequest seedRequest(int lines) {
+        InventoryRequest request = new InventoryRequest();
+        request.setRequester(user);
+        request.setStatus(RequestStatus.PENDING);
+        request.setRequestedAt(LocalDateTime.now());
+        for (int i = 0; i < lines; i++) {
+            int n = seeded++;
+            InventoryItem item = new InventoryItem();
+            item.setItemCode("ISSUE-" + n);
+            item.setItemName("Issued item " + n);
+            item.setUnitOfMeasurement("pcs");
+            item.setItemCategory(category);
+            item.setItemType(type);
+            item.setCurrentStockQuantity(BigDecimal.TEN);
+            item.setMinimumStockLevel(BigDecimal.ONE);
+            item.setUnitPrice(BigDecimal.ONE);
+            item.setCreatingUser(user);
+            item.setPendingPurchaseRequest(false);
+            entityManager.persist(item);
+
+            InventoryRequestLineItem lineItem = new InventoryRequestLineItem();
+            lineItem.setRequestedItem(item);
+            lineItem.setRequestedQuantity(new BigDecimal("2"));
+            lineItem.setStatus(RequestLineItemStatus.PENDING);
+            request.addLineItem(lineItem);
+        }
+        entityManager.persist(request);
+        return request;
+    }
+}
@@ -0,0 +1,127 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.dto.InventoryItemResponseDTO;
+import com.irrigation.erp.backend.model.InventoryItem;
+import com.irrigation.erp.backend.model.ItemCategory;
+import com.irrigation.erp.backend.model.ItemType;
+import com.irrigation.erp.backend.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("ci")
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class InventoryItemQueryCountTests {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private ItemCategory category;
+    private int seeded;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        category = persist(new ItemCategory(null, "qc-category", null, "test"));
+    }
+
+    @Test
+    void itemListingsRunAFixedNumberOfStatements() {
+        seedItems(5);
+        long allSmall = statementsFor(() -> inventoryService.getAllInventoryItems());
+        long byCategorySmall = statementsFor(() -> inventoryService.getInventoryItemsByCategoryId(category.getId()));
+        long byCategoryNameSmall = statementsFor(() -> inventoryService.getInventoryItemsByCategory(category.getName()));
+        long pageSmall = statementsFor(() -> inventoryService.getInventoryItemsPage(null, 50, InventoryService.SORT_BY_ITEM_CODE));
+
+        seedItems(25);
+        assertThat(statementsFor(() -> inventoryService.getAllInventoryItems())).isEqualTo(allSmall).isEqualTo(1);
+        assertThat(statementsFor(() -> inventoryService.getInventoryItemsByCategoryId(category.getId()))).isEqualTo(byCategorySmall);
+        assertThat(statementsFor(() -> inventoryService.getInventoryItemsByCategory(category.getName()))).isEqualTo(byCategoryNameSmall);
+        assertThat(statementsFor(() -> inventoryService.getInventoryItemsPage(null, 50, InventoryService.SORT_BY_ITEM_CODE))).isEqualTo(pageSmall);
+    }
+
+    @Test
+    void lowStockListingsReturnOnlyMatchingRowsInOneStatement() {
+        seedItems(3);
+        InventoryItem low = entityManager.find(InventoryItem.class, itemIdFor("QC-0"));
+        low.setCurrentStockQuantity(BigDecimal.ONE);
+        InventoryItem out = entityManager.find(InventoryItem.class, itemIdFor("QC-1"));
+        out.setCurrentStockQuantity(BigDecimal.ZERO);
+
+        assertThat(statementsFor(() -> inventoryService.getLowStockItemsByCategory(category.getName()))).isEqualTo(2);
+        assertThat(inventoryService.getLowStockItemsByCategory(category.getName()))
+                .extracting(InventoryItemResponseDTO::getItemCode)
+                .containsExactly("QC-0", "QC-1");
+        assertThat(inventoryService.getLowStockItems())
+                .extracting(InventoryItemResponseDTO::getItemCode)
+                .contains("QC-0", "QC-1")
+                .doesNotContain("QC-2");
+    }
+
+    private Long itemIdFor(String itemCode) {
+        return entityManager.createQuery("SELECT i.id FROM InventoryItem i WHERE i.itemCode = :itemCode", Long.class)
+                .setParameter("itemCode", itemCode)
+                .getSingleResult();
+    }
+
+    private long statementsFor(Supplier<?> listing) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        listing.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    // Every item gets its own type and users so lazy loading would cost extra selects per row
+    private void seedItems(int count) {
+        for (int i = 0; i < count; i++) {
+            int n = seeded++;
+            User user = new User();
+            user.setUsername("qc-user-" + n);
+            user.setEmail("qc-user-" + n + "@example.com");
+            user.setPassword("secret");
+            persist(user);
+
+            InventoryItem item = new InventoryItem();
+            item.setItemCode("QC-" + n);
+            item.setItemName("Query count item " + n);
+            item.setUnitOfMeasurement("pcs");
+            item.setItemCategory(category);
+            item.setItemType(persist(new ItemType(null, "qc-type-" + n, null)));
+            item.setCurrentStockQuantity(BigDecimal.TEN);
+            item.setMinimumStockLevel(BigDecimal.ONE);
+            item.setUnitPrice(BigDecimal.ONE);
+            item.setCreatingUser(user);
+            item.setLastUpdatedByUser(user);
+            item.setPendingPurchaseRequest(false);
+            persist(item);
+        }
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+}
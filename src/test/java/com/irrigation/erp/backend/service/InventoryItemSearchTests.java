@@ -0,0 +1,123 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.dto.InventoryItemResponseDTO;
+import com.irrigation.erp.backend.model.InventoryItem;
+import com.irrigation.erp.backend.model.ItemCategory;
+import com.irrigation.erp.backend.model.ItemType;
+import com.irrigation.erp.backend.model.User;
+import com.irrigation.erp.backend.repository.InventoryItemRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ActiveProfiles("ci")
+@SpringBootTest
+@Transactional
+class InventoryItemSearchTests {
+
+    private static final int CATALOGUE = 100_000;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ItemCategory category;
+    private ItemType type;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        category = persist(new ItemCategory(null, "search-category", null, "test"));
+        type = persist(new ItemType(null, "search-type", null));
+        user = new User();
+        user.setUsername("search-user");
+        user.setEmail("search-user@example.com");
+        user.setPassword("secret");
+        persist(user);
+    }
+
+    @Test
+    void rankingPutsCodeMatchesFirstThenNamePrefixesThenClosestNames() {
+        item("QUOIN-1", "Quoin block", null);
+        item("QUOIN-2", "Corner piece", null);
+        item("QB-7", "Quoin stone", null);
+        item("ST-9", "Stone with quoin edge", null);
+        item("ST-10", "Plain stone", "For quoin repairs");
+        entityManager.flush();
+
+        assertThat(codes("quoin-1", null)).containsExactly("QUOIN-1");
+        assertThat(codes("  Quoin ", null)).containsExactly("QUOIN-1", "QUOIN-2", "QB-7", "ST-9", "ST-10");
+        assertThat(codes("quoin", 2)).containsExactly("QUOIN-1", "QUOIN-2");
+        // LIKE wildcards in the term are matched literally
+        assertThat(codes("quo_n", null)).isEmpty();
+        assertThatThrownBy(() -> inventoryService.searchInventoryItems("qu", null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void searchIsAnsweredFromTheTrigramIndexOnALargeCatalogue() {
+        jdbcTemplate.update("""
+                INSERT INTO inventory_items (item_code, item_name, item_description, unit_of_measurement,
+                    current_stock_quantity, minimum_stock_level, unit_price, is_active, pending_purchase_request,
+                    created_by_user_id, item_category_id, item_type_id)
+                SELECT 'SRCH-' || g,
+                       (ARRAY['PVC pipe', 'Gate valve', 'Elbow', 'Tee joint', 'Sluice gate', 'Sprinkler head',
+                              'Suction hose', 'Flange', 'Gasket', 'Pump seal'])[g % 10 + 1] || ' ' || g,
+                       'Synthetic catalogue item ' || g, 'pcs', 100, 1, 1, true, false, ?, ?, ?
+                FROM generate_series(1, ?) g
+                """, user.getId(), category.getId(), type.getId(), CATALOGUE);
+        jdbcTemplate.execute("ANALYZE inventory_items");
+
+        // Without a LIMIT the planner cannot hope to stop a sequential scan early, so this is the plan
+        // used whenever the ranking has to see every match
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT id FROM inventory_items WHERE " + InventoryItemRepository.SEARCH_DOCUMENT
+                        + " LIKE '%sluice gate 4000%'", String.class));
+
+        assertThat(plan).contains("idx_inventory_items_search_trgm").doesNotContain("Seq Scan on inventory_items");
+        assertThat(codes("sluice gate 40004", null)).first().isEqualTo("SRCH-40004");
+    }
+
+    private List<String> codes(String query, Integer limit) {
+        return inventoryService.searchInventoryItems(query, limit).stream()
+                .map(InventoryItemResponseDTO::getItemCode)
+                .toList();
+    }
+
+    private void item(String itemCode, String itemName, String itemDescription) {
+        InventoryItem item = new InventoryItem();
+        item.setItemCode(itemCode);
+        item.setItemName(itemName);
+        item.setItemDescription(itemDescription);
+        item.setUnitOfMeasurement("pcs");
+        item.setItemCategory(category);
+        item.setItemType(type);
+        item.setCurrentStockQuantity(BigDecimal.TEN);
+        item.setMinimumStockLevel(BigDecimal.ONE);
+        item.setUnitPrice(BigDecimal.ONE);
+        item.setCreatingUser(user);
+        item.setPendingPurchaseRequest(false);
+        persist(item);
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+}
@@ -0,0 +1,261 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.dto.BatchIssueItemDTO;
+import com.irrigation.erp.backend.dto.BatchIssueRequestDTO;
+import com.irrigation.erp.backend.dto.InventoryRequestCreateDTO;
+import com.irrigation.erp.backend.dto.InventoryRequestLineItemCreateDTO;
+import com.irrigation.erp.backend.dto.MaterialDistributionTableDTO;
+import com.irrigation.erp.backend.enums.RequestLineItemStatus;
+import com.irrigation.erp.backend.enums.RequestStatus;
+import com.irrigation.erp.backend.model.InventoryIssue;
+import com.irrigation.erp.backend.model.InventoryItem;
+import com.irrigation.erp.backend.model.InventoryRequest;
+import com.irrigation.erp.backend.model.InventoryRequestLineItem;
+import com.irrigation.erp.backend.model.ItemCategory;
+import com.irrigation.erp.backend.model.ItemType;
+import com.irrigation.erp.backend.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ActiveProfiles("ci")
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class InventoryRequestServiceTests {
+
+    @Autowired
+    private InventoryRequestService inventoryRequestService;
+
+    @Autowired
+    private InventoryIssueService inventoryIssueService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private ItemCategory category;
+    private ItemType type;
+    private int seeded;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = new User();
+        user.setUsername("batch-user");
+        user.setEmail("batch-user@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        category = new ItemCategory(null, "batch-category", null, "test");
+        entityManager.persist(category);
+        type = new ItemType(null, "batch-type", null);
+        entityManager.persist(type);
+    }
+
+    @Test
+    void batchIssueStatementCountDoesNotGrowWithLines() {
+        long small = statementsForBatchIssue(seedRequest(5));
+        long large = statementsForBatchIssue(seedRequest(30));
+
+        // Either run may also fetch the next block of 50 issue ids from the sequence
+        assertThat(large).isBetween(small - 2, small + 2);
+    }
+
+    @Test
+    void requestCreationStatementCountDoesNotGrowWithLines() {
+        long small = statementsForCreate(createFor(seedRequest(5), "1"));
+        long large = statementsForCreate(createFor(seedRequest(120), "1"));
+
+        // Only the id blocks and insert batches grow, one each per 50 lines
+        assertThat(large).isLessThanOrEqualTo(small + 6);
+    }
+
+    @Test
+    void requestCreationReportsEveryBadLineAtOnce() {
+        InventoryRequestCreateDTO create = createFor(seedRequest(3), "1");
+        create.getItems().get(0).setItemCode("NO-SUCH-1");
+        create.getItems().get(1).setRequestedQuantity(BigDecimal.ZERO);
+        create.getItems().add(line("NO-SUCH-2", "1"));
+
+        assertThatThrownBy(() -> inventoryRequestService.createInventoryRequest(create))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'NO-SUCH-1', 'NO-SUCH-2'")
+                .hasMessageContaining("must be positive for items: '" + create.getItems().get(1).getItemCode() + "'");
+    }
+
+    @Test
+    void batchIssueDeductsStockAndRecordsEveryLine() {
+        InventoryRequest request = seedRequest(3);
+
+        inventoryRequestService.issueBatchItems(batchFor(request));
+        entityManager.flush();
+        entityManager.clear();
+
+        InventoryRequest reloaded = entityManager.find(InventoryRequest.class, request.getId());
+        assertThat(reloaded.getStatus()).isEqualTo(RequestStatus.ISSUED);
+        assertThat(reloaded.getLineItems()).allSatisfy(lineItem -> {
+            assertThat(lineItem.getStatus()).isEqualTo(RequestLineItemStatus.ISSUED);
+            assertThat(lineItem.getRequestedItem().getCurrentStockQuantity()).isEqualByComparingTo("8");
+        });
+        assertThat(entityManager.createQuery("SELECT COUNT(i) FROM InventoryIssue i WHERE i.inventoryRequest.id = :requestId", Long.class)
+                .setParameter("requestId", request.getId())
+                .getSingleResult()).isEqualTo(3L);
+    }
+
+    @Test
+    void batchIssueRejectsInsufficientStock() {
+        InventoryRequest request = seedRequest(2);
+        BatchIssueRequestDTO batch = batchFor(request);
+        batch.getItemsToIssue().get(1).setIssuedQuantity(new BigDecimal("11"));
+
+        assertThatThrownBy(() -> inventoryRequestService.issueBatchItems(batch))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Insufficient stock");
+    }
+
+    @Test
+    void materialDistributionTableFollowsIssuesThroughTheMonthlyRollup() {
+        type = entityManager.createQuery("SELECT t FROM ItemType t WHERE LOWER(t.name) = 'material'", ItemType.class)
+                .getResultStream()
+                .findFirst()
+                .orElseGet(() -> {
+                    ItemType material = new ItemType(null, "Material", null);
+                    entityManager.persist(material);
+                    return material;
+                });
+        User receiver = new User();
+        receiver.setUsername("batch-receiver");
+        receiver.setEmail("batch-receiver@example.com");
+        receiver.setPassword("secret");
+        entityManager.persist(receiver);
+        InventoryRequest request = seedRequest(2);
+        request.setRequester(receiver);
+
+        inventoryRequestService.issueBatchItems(batchFor(request));
+        entityManager.flush();
+
+        assertThat(inventoryRequestService.getMaterialDistributionTable(receiver.getId()))
+                .extracting(MaterialDistributionTableDTO::getThisMonthQty, MaterialDistributionTableDTO::getPrevMonthQty, MaterialDistributionTableDTO::getTotalQty)
+                .containsOnly(tuple(new BigDecimal("2.00"), new BigDecimal("0"), new BigDecimal("2.00")));
+        assertThat(inventoryRequestService.getMaterialDistributionTable(user.getId())).hasSize(2);
+
+        List<InventoryIssue> issues = entityManager.createQuery("SELECT i FROM InventoryIssue i WHERE i.inventoryRequest.id = :requestId ORDER BY i.id", InventoryIssue.class)
+                .setParameter("requestId", request.getId())
+                .getResultList();
+        InventoryIssue moved = new InventoryIssue();
+        moved.setIssuedAt(LocalDateTime.now().minusMonths(1));
+        moved.setIssuedQuantity(new BigDecimal("3"));
+        moved.setItemValue(new BigDecimal("3"));
+        inventoryIssueService.updateIssue(issues.get(0).getId(), moved);
+        inventoryIssueService.deleteIssue(issues.get(1).getId());
+        entityManager.flush();
+
+        assertThat(inventoryRequestService.getMaterialDistributionTable(receiver.getId()))
+                .extracting(MaterialDistributionTableDTO::getItemId, MaterialDistributionTableDTO::getThisMonthQty,
+                        MaterialDistributionTableDTO::getPrevMonthQty, MaterialDistributionTableDTO::getTotalQty)
+                .containsExactly(tuple(issues.get(0).getIssuedItem().getId(), new BigDecimal("0"), new BigDecimal("3.00"), new BigDecimal("3.00")));
+    }
+
+    private long statementsForBatchIssue(InventoryRequest request) {
+        BatchIssueRequestDTO batch = batchFor(request);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        inventoryRequestService.issueBatchItems(batch);
+        entityManager.flush();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long statementsForCreate(InventoryRequestCreateDTO create) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        InventoryRequest created = inventoryRequestService.createInventoryRequest(create);
+        entityManager.flush();
+        assertThat(created.getLineItems()).hasSize(create.getItems().size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    // A new request for the same items as an existing one
+    private InventoryRequestCreateDTO createFor(InventoryRequest request, String quantity) {
+        InventoryRequestCreateDTO create = new InventoryRequestCreateDTO();
+        create.setRequesterUserId(user.getId());
+        create.setPurpose("create test");
+        create.setItems(request.getLineItems().stream()
+                .map(lineItem -> line(lineItem.getRequestedItem().getItemCode(), quantity))
+                .collect(Collectors.toList()));
+        return create;
+    }
+
+    private static InventoryRequestLineItemCreateDTO line(String itemCode, String quantity) {
+        InventoryRequestLineItemCreateDTO line = new InventoryRequestLineItemCreateDTO();
+        line.setItemCode(itemCode);
+        line.setRequestedQuantity(new BigDecimal(quantity));
+        return line;
+    }
+
+    private BatchIssueRequestDTO batchFor(InventoryRequest request) {
+        BatchIssueRequestDTO batch = new BatchIssueRequestDTO();
+        batch.setIssuedByUserId(user.getId());
+        batch.setIssueNotes("batch test");
+        batch.setItemsToIssue(request.getLineItems().stream().map(lineItem -> {
+            BatchIssueItemDTO line = new BatchIssueItemDTO();
+            line.setInventoryRequestLineItemId(lineItem.getId());
+            line.setIssuedQuantity(new BigDecimal("2"));
+            return line;
+        }).collect(Collectors.toList()));
+        return batch;
+    }
+
+    // One request whose lines each point at their own item with 10 in stock
+    private InventoryRequest seedRequest(int lines) {
+        InventoryRequest request = new InventoryRequest();
+        request.setRequester(user);
+        request.setStatus(RequestStatus.PENDING);
+        request.setRequestedAt(LocalDateTime.now());
+        for (int i = 0; i < lines; i++) {
+            int n = seeded++;
+            InventoryItem item = new InventoryItem();
+            item.setItemCode("BATCH-" + n);
+            item.setItemName("Batch issue item " + n);
+            item.setUnitOfMeasurement("pcs");
+            item.setItemCategory(category);
+            item.setItemType(type);
+            item.setCurrentStockQuantity(BigDecimal.TEN);
+            item.setMinimumStockLevel(BigDecimal.ONE);
+            item.setUnitPrice(BigDecimal.ONE);
+            item.setCreatingUser(user);
+            item.setPendingPurchaseRequest(false);
+            entityManager.persist(item);
+
+            InventoryRequestLineItem lineItem = new InventoryRequestLineItem();
+            lineItem.setRequestedItem(item);
+            lineItem.setRequestedQuantity(new BigDecimal("2"));
+            lineItem.setStatus(RequestLineItemStatus.PENDING);
+            request.addLineItem(lineItem);
+        }
+        entityManager.persist(request);
+        return request;
+    }
+}
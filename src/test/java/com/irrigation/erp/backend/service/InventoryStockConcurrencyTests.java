@@ -0,0 +1,224 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.dto.IssueRequestDTO;
+import com.irrigation.erp.backend.enums.RequestLineItemStatus;
+import com.irrigation.erp.backend.enums.RequestStatus;
+import com.irrigation.erp.backend.model.InventoryItem;
+import com.irrigation.erp.backend.model.InventoryRequest;
+import com.irrigation.erp.backend.model.InventoryRequestLineItem;
+import com.irrigation.erp.backend.model.ItemCategory;
+import com.irrigation.erp.backend.model.ItemType;
+import com.irrigation.erp.backend.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs without a surrounding test transaction so every issue commits on its own connection
+@ActiveProfiles("ci")
+@SpringBootTest
+class InventoryStockConcurrencyTests {
+
+    private static final int THREADS = 8;
+    private static final int LINE_ITEMS = 40;
+    private static final BigDecimal INITIAL_STOCK = new BigDecimal("100");
+    private static final BigDecimal ISSUE_QUANTITY = new BigDecimal("5");
+
+    @Autowired
+    private InventoryRequestService inventoryRequestService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private StockLedgerVerifier stockLedgerVerifier;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long userId;
+    private Long itemId;
+    private Long createdTypeId;
+    private final List<Long> lineItemIds = new ArrayList<>();
+
+    @Test
+    void concurrentIssuesAndAdjustmentsNeverLoseADeduction() throws Exception {
+        seed();
+        double issuesBefore = count(InventoryMetrics.ISSUES, "mode", "single");
+        double decreasesBefore = count(InventoryMetrics.STOCK_ADJUSTMENTS, "direction", "decrease");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BigDecimal>> issues = new ArrayList<>();
+        List<Future<BigDecimal>> adjustments = new ArrayList<>();
+        try {
+            for (Long lineItemId : lineItemIds) {
+                issues.add(executor.submit(deducting(start, () -> {
+                    IssueRequestDTO issue = new IssueRequestDTO();
+                    issue.setIssuedByUserId(userId);
+                    issue.setIssuedQuantity(ISSUE_QUANTITY);
+                    inventoryRequestService.issueInventoryItem(lineItemId, issue);
+                    return ISSUE_QUANTITY;
+                })));
+                adjustments.add(executor.submit(deducting(start, () -> {
+                    inventoryService.adjustStock(itemId, BigDecimal.ONE.negate(), userId, "stress test");
+                    return BigDecimal.ONE;
+                })));
+            }
+            start.countDown();
+
+            BigDecimal issued = sum(issues);
+            BigDecimal adjusted = sum(adjustments);
+
+            BigDecimal finalStock = transactionTemplate.execute(status ->
+                    entityManager.find(InventoryItem.class, itemId).getCurrentStockQuantity());
+            BigDecimal recordedIssues = transactionTemplate.execute(status -> entityManager.createQuery(
+                            "SELECT COALESCE(SUM(i.issuedQuantity), 0) FROM InventoryIssue i WHERE i.issuedItem.id = :itemId", BigDecimal.class)
+                    .setParameter("itemId", itemId)
+                    .getSingleResult());
+
+            // Demand (40 x 5 + 40 x 1) exceeds stock, so some calls must have been rejected
+            assertThat(issued).isGreaterThan(BigDecimal.ZERO);
+            assertThat(finalStock).isGreaterThanOrEqualTo(BigDecimal.ZERO).isLessThan(ISSUE_QUANTITY);
+            assertThat(finalStock).isEqualByComparingTo(INITIAL_STOCK.subtract(issued).subtract(adjusted));
+            assertThat(recordedIssues).isEqualByComparingTo(issued);
+            // Every committed change made it into the ledger, and nothing from the rejected ones
+            assertThat(stockLedgerVerifier.verify()).extracting(StockLedgerVerifier.Mismatch::itemId).doesNotContain(itemId);
+
+            // Rejected calls roll back and must not be counted
+            assertThat(count(InventoryMetrics.ISSUES, "mode", "single") - issuesBefore)
+                    .isEqualTo(issued.divide(ISSUE_QUANTITY).doubleValue());
+            assertThat(count(InventoryMetrics.STOCK_ADJUSTMENTS, "direction", "decrease") - decreasesBefore)
+                    .isEqualTo(adjusted.doubleValue());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private double count(String name, String tagKey, String tagValue) {
+        return meterRegistry.get(name).tag(tagKey, tagValue).counter().count();
+    }
+
+    private BigDecimal sum(List<Future<BigDecimal>> results) throws Exception {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Future<BigDecimal> result : results) {
+            total = total.add(result.get(60, TimeUnit.SECONDS));
+        }
+        return total;
+    }
+
+    // Returns the quantity taken, or zero when the service rejected the call for lack of stock
+    private Callable<BigDecimal> deducting(CountDownLatch start, Callable<BigDecimal> call) {
+        return () -> {
+            start.await();
+            try {
+                return call.call();
+            } catch (IllegalArgumentException e) {
+                return BigDecimal.ZERO;
+            }
+        };
+    }
+
+    private void seed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = new User();
+            user.setUsername("stress-user");
+            user.setEmail("stress-user@example.com");
+            user.setPassword("secret");
+            entityManager.persist(user);
+            userId = user.getId();
+
+            ItemType material = entityManager.createQuery("SELECT t FROM ItemType t WHERE t.name = 'Material'", ItemType.class)
+                    .getResultStream()
+                    .findFirst()
+                    .orElseGet(() -> {
+                        ItemType type = new ItemType(null, "Material", null);
+                        entityManager.persist(type);
+                        createdTypeId = type.getId();
+                        return type;
+                    });
+            ItemCategory category = new ItemCategory(null, "stress-category", null, "test");
+            entityManager.persist(category);
+
+            InventoryItem item = new InventoryItem();
+            item.setItemCode("STRESS-1");
+            item.setItemName("Stress test item");
+            item.setUnitOfMeasurement("pcs");
+            item.setItemCategory(category);
+            item.setItemType(material);
+            item.setCurrentStockQuantity(INITIAL_STOCK);
+            item.setMinimumStockLevel(BigDecimal.ONE);
+            item.setUnitPrice(BigDecimal.ONE);
+            item.setCreatingUser(user);
+            item.setPendingPurchaseRequest(false);
+            entityManager.persist(item);
+            itemId = item.getId();
+            stockLedgerService.recordOpening(itemId, INITIAL_STOCK, userId, LocalDateTime.now());
+
+            for (int i = 0; i < LINE_ITEMS; i++) {
+                InventoryRequest request = new InventoryRequest();
+                request.setRequester(user);
+                request.setStatus(RequestStatus.PENDING);
+                request.setRequestedAt(LocalDateTime.now());
+                InventoryRequestLineItem lineItem = new InventoryRequestLineItem();
+                lineItem.setRequestedItem(item);
+                lineItem.setRequestedQuantity(ISSUE_QUANTITY);
+                lineItem.setStatus(RequestLineItemStatus.PENDING);
+                request.addLineItem(lineItem);
+                entityManager.persist(request);
+                lineItemIds.add(lineItem.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM StockMovement m WHERE m.item.id = :itemId")
+                    .setParameter("itemId", itemId).executeUpdate();
+            entityManager.createQuery("DELETE FROM InventoryIssue i WHERE i.issuedItem.id = :itemId")
+                    .setParameter("itemId", itemId).executeUpdate();
+            entityManager.createQuery("DELETE FROM MaterialDistributionMonthly m WHERE m.id.itemId = :itemId")
+                    .setParameter("itemId", itemId).executeUpdate();
+            entityManager.createQuery("DELETE FROM InventoryRequestLineItem l WHERE l.requestedItem.id = :itemId")
+                    .setParameter("itemId", itemId).executeUpdate();
+            entityManager.createQuery("DELETE FROM InventoryRequest r WHERE r.requester.id = :userId")
+                    .setParameter("userId", userId).executeUpdate();
+            entityManager.createQuery("DELETE FROM InventoryItem i WHERE i.id = :itemId")
+                    .setParameter("itemId", itemId).executeUpdate();
+            entityManager.createQuery("DELETE FROM ItemCategory c WHERE c.name = 'stress-category'").executeUpdate();
+            if (createdTypeId != null) {
+                entityManager.createQuery("DELETE FROM ItemType t WHERE t.id = :typeId")
+                        .setParameter("typeId", createdTypeId).executeUpdate();
+            }
+            entityManager.createQuery("DELETE FROM User u WHERE u.id = :userId")
+                    .setParameter("userId", userId).executeUpdate();
+        });
+    }
+}
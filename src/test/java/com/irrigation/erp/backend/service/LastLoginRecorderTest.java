@@ -0,0 +1,72 @@
+package com.irrigation.erp.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class LastLoginRecorderTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private LastLoginRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        recorder = new LastLoginRecorder(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void repeatedLoginsCollapseIntoOneBatchedUpdatePerUser() {
+        recorder.record(7L, NOON);
+        recorder.record(3L, NOON.plusMinutes(1));
+        recorder.record(7L, NOON.plusMinutes(2));
+        recorder.record(7L, NOON.plusMinutes(1));
+
+        recorder.flush();
+
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), args.capture());
+        assertThat(args.getValue()).extracting(row -> row[1], row -> row[0]).containsExactly(
+                tuple(3L, Timestamp.valueOf(NOON.plusMinutes(1))),
+                tuple(7L, Timestamp.valueOf(NOON.plusMinutes(2))));
+
+        recorder.flush();
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void failedFlushKeepsThePendingLogins() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new IllegalStateException("db down"));
+        recorder.record(7L, NOON);
+
+        assertThatThrownBy(recorder::flush).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(recorder::flush).isInstanceOf(IllegalStateException.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void nothingPendingMeansNoStatement() {
+        recorder.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,60 @@
+package com.irrigation.erp.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordVerificationServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordVerificationService service;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.close();
+    }
+
+    @Test
+    void verifiesOffTheCallingThread() throws Exception {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        service = new PasswordVerificationService(encoder, 1, 1);
+        String hash = encoder.encode("secret");
+
+        assertThat(service.verify("secret", hash).get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(service.verify("wrong", hash).get(5, TimeUnit.SECONDS)).isFalse();
+    }
+
+    @Test
+    void rejectsOnceThePoolAndQueueAreFull() throws Exception {
+        BCryptPasswordEncoder encoder = mock(BCryptPasswordEncoder.class);
+        CountDownLatch running = new CountDownLatch(1);
+        when(encoder.matches(any(), any())).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return true;
+        });
+        service = new PasswordVerificationService(encoder, 1, 1);
+
+        CompletableFuture<Boolean> inFlight = service.verify("a", "hash");
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = service.verify("b", "hash");
+
+        assertThatThrownBy(() -> service.verify("c", "hash")).isInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+        assertThat(inFlight.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,251 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.dto.CreateGrnRequest;
+import com.irrigation.erp.backend.enums.RequestLineItemStatus;
+import com.irrigation.erp.backend.enums.RequestStatus;
+import com.irrigation.erp.backend.model.InventoryIssue;
+import com.irrigation.erp.backend.model.InventoryItem;
+import com.irrigation.erp.backend.model.InventoryRequest;
+import com.irrigation.erp.backend.model.InventoryRequestLineItem;
+import com.irrigation.erp.backend.model.ItemCategory;
+import com.irrigation.erp.backend.model.ItemType;
+import com.irrigation.erp.backend.model.PurchaseRequest;
+import com.irrigation.erp.backend.model.PurchaseRequestLineItem;
+import com.irrigation.erp.backend.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ActiveProfiles("ci")
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ReorderServiceTests {
+
+    private static final int CATALOGUE = 100_000;
+    private static final int CATEGORIES = 25;
+
+    @Autowired
+    private ReorderService reorderService;
+
+    @Autowired
+    private PurchaseRequestService purchaseRequestService;
+
+    @Autowired
+    private GrnService grnService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private ItemType type;
+    private InventoryRequest request;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("reorder-user");
+        user.setEmail("reorder-user@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        type = new ItemType(null, "reorder-type", null);
+        entityManager.persist(type);
+        request = new InventoryRequest();
+        request.setRequester(user);
+        request.setStatus(RequestStatus.ISSUED);
+        request.setRequestedAt(LocalDateTime.now().minusYears(1));
+        entityManager.persist(request);
+    }
+
+    @Test
+    void draftsOnePendingRequestPerCategoryFromRecentConsumption() {
+        ItemCategory pipes = category("reorder-pipes");
+        ItemCategory valves = category("reorder-valves");
+        InventoryItem busy = item("RO-1", pipes, "2", "10", "5", true, false);
+        item("RO-2", pipes, "10", "10", "3", true, false);
+        item("RO-3", pipes, "5", "10", "1", true, true);
+        item("RO-4", pipes, "1", "10", "1", false, false);
+        item("RO-5", pipes, "50", "10", "1", true, false);
+        item("RO-6", valves, "0", "4", "2", true, false);
+        issue(busy, "60", 10);
+        issue(busy, "30", 80);
+        issue(busy, "500", 200);
+        entityManager.flush();
+
+        List<PurchaseRequest> drafts = reorderService.draftReorders(user.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        // RO-1 covers 30 of the 90 issued over 90 days, RO-2 has no issues and gets another minimum level
+        assertThat(drafts).extracting(PurchaseRequest::getStatus).containsOnly(PurchaseRequest.Status.PENDING);
+        assertThat(drafts).filteredOn(draft -> draft.getRefNo().endsWith("-" + pipes.getId())).singleElement()
+                .satisfies(draft -> {
+                    assertThat(draft.getTotalValue()).isEqualByComparingTo("220");
+                    assertThat(draft.getItems())
+                            .extracting(PurchaseRequestLineItem::getItemName, PurchaseRequestLineItem::getQuantity)
+                            .containsExactly(tuple("RO-1 item", new BigDecimal("38")), tuple("RO-2 item", new BigDecimal("10")));
+                });
+        assertThat(drafts).filteredOn(draft -> draft.getRefNo().endsWith("-" + valves.getId())).singleElement()
+                .satisfies(draft -> assertThat(draft.getItems())
+                        .extracting(PurchaseRequestLineItem::getQuantity, PurchaseRequestLineItem::getEstimatedPrice)
+                        .containsExactly(tuple(new BigDecimal("8"), new BigDecimal("16.00"))));
+
+        assertThat(entityManager.createQuery("""
+                        SELECT i.itemCode FROM InventoryItem i
+                        WHERE i.itemCode LIKE 'RO-%' AND i.pendingPurchaseRequest = true ORDER BY i.itemCode
+                        """, String.class).getResultList())
+                .containsExactly("RO-1", "RO-2", "RO-3", "RO-6");
+        assertThat(reorderService.draftReorders(user.getId())).noneMatch(draft ->
+                draft.getRefNo().endsWith("-" + pipes.getId()) || draft.getRefNo().endsWith("-" + valves.getId()));
+    }
+
+    @Test
+    void itemsAreReorderedAgainOnceTheirRequestIsReceivedOrRejected() {
+        ItemCategory fittings = category("reorder-fittings");
+        ItemCategory pumps = category("reorder-pumps");
+        item("RO-7", fittings, "1", "10", "1", true, false);
+        item("RO-8", pumps, "0", "2", "40", true, false);
+        item("RO-9", pumps, "3", "10", "1", true, true);
+        entityManager.flush();
+
+        List<PurchaseRequest> drafts = reorderService.draftReorders(user.getId());
+        Long fittingsDraftId = draftFor(drafts, fittings).getId();
+        Long pumpsDraftId = draftFor(drafts, pumps).getId();
+        assertThat(pendingCodes("RO-7", "RO-8", "RO-9")).containsExactly("RO-7", "RO-8", "RO-9");
+        assertThat(reorderService.draftReorders(user.getId())).noneMatch(draft ->
+                draft.getRefNo().endsWith("-" + fittings.getId()) || draft.getRefNo().endsWith("-" + pumps.getId()));
+
+        // Rejecting one draft and receiving the other frees only the items they drafted, RO-9 was ordered elsewhere
+        purchaseRequestService.rejectPurchaseRequest(fittingsDraftId);
+        purchaseRequestService.approvePurchaseRequest(pumpsDraftId);
+        CreateGrnRequest grn = new CreateGrnRequest();
+        grn.setReceiptNo("GRN-REORDER-" + pumpsDraftId);
+        grn.setReceivingStation("Main store");
+        grn.setItems(List.of());
+        grnService.createGrn(pumpsDraftId, grn, user.getId());
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(entityManager.find(PurchaseRequest.class, fittingsDraftId).getStatus())
+                .isEqualTo(PurchaseRequest.Status.REJECTED);
+        assertThat(pendingCodes("RO-7", "RO-8", "RO-9")).containsExactly("RO-9");
+
+        List<PurchaseRequest> secondCycle = reorderService.draftReorders(user.getId());
+        assertThat(draftFor(secondCycle, fittings).getItems()).extracting(PurchaseRequestLineItem::getItemName)
+                .containsExactly("RO-7 item");
+        assertThat(draftFor(secondCycle, pumps).getItems()).extracting(PurchaseRequestLineItem::getItemName)
+                .containsExactly("RO-8 item");
+        assertThat(pendingCodes("RO-7", "RO-8", "RO-9")).containsExactly("RO-7", "RO-8", "RO-9");
+    }
+
+    @Test
+    void aFullCatalogueIsDraftedWithBatchedStatements() {
+        for (int c = 0; c < CATEGORIES; c++) {
+            category("reorder-bulk-" + c);
+        }
+        entityManager.flush();
+        // Every tenth item is below its minimum
+        jdbcTemplate.update("""
+                INSERT INTO inventory_items (item_code, item_name, unit_of_measurement, item_category_id, item_type_id,
+                                             current_stock_quantity, minimum_stock_level, unit_price, created_by_user_id,
+                                             is_active, pending_purchase_request)
+                SELECT 'RO-BULK-' || g, 'Reorder bulk item ' || g, 'pcs',
+                       (SELECT id FROM item_categories WHERE name = 'reorder-bulk-' || (g / 10) % ?), ?,
+                       CASE WHEN g % 10 = 0 THEN 1 ELSE 100 END, 5, 2, ?, true, false
+                FROM generate_series(1, ?) g
+                """, CATEGORIES, type.getId(), user.getId(), CATALOGUE);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<PurchaseRequest> drafts = reorderService.draftReorders(user.getId());
+        entityManager.flush();
+        long statements = statistics.getPrepareStatementCount();
+
+        int lines = CATALOGUE / 10;
+        List<PurchaseRequest> bulkDrafts = drafts.stream()
+                .filter(draft -> draft.getItems().get(0).getItemName().startsWith("Reorder bulk"))
+                .toList();
+        assertThat(bulkDrafts.size()).isEqualTo(CATEGORIES);
+        assertThat(bulkDrafts.stream().mapToInt(draft -> draft.getItems().size()).sum()).isEqualTo(lines);
+        // Ids come 50 at a time and inserts go out 50 to a batch, claims 1000 ids per update
+        assertThat(statements).isLessThan(2L * lines / 50 + lines / 1000 + 20);
+    }
+
+    private static PurchaseRequest draftFor(List<PurchaseRequest> drafts, ItemCategory category) {
+        return drafts.stream().filter(draft -> draft.getRefNo().endsWith("-" + category.getId())).findFirst().orElseThrow();
+    }
+
+    private List<String> pendingCodes(String... codes) {
+        return entityManager.createQuery("""
+                        SELECT i.itemCode FROM InventoryItem i
+                        WHERE i.itemCode IN :codes AND i.pendingPurchaseRequest = true ORDER BY i.itemCode
+                        """, String.class)
+                .setParameter("codes", List.of(codes))
+                .getResultList();
+    }
+
+    private ItemCategory category(String name) {
+        ItemCategory category = new ItemCategory(null, name, null, "test");
+        entityManager.persist(category);
+        return category;
+    }
+
+    private InventoryItem item(String code, ItemCategory category, String stock, String minimum, String price,
+                               boolean active, boolean pending) {
+        InventoryItem item = new InventoryItem();
+        item.setItemCode(code);
+        item.setItemName(code + " item");
+        item.setUnitOfMeasurement("pcs");
+        item.setItemCategory(category);
+        item.setItemType(type);
+        item.setCurrentStockQuantity(new BigDecimal(stock));
+        item.setMinimumStockLevel(new BigDecimal(minimum));
+        item.setUnitPrice(new BigDecimal(price));
+        item.setCreatingUser(user);
+        item.setIsActive(active);
+        item.setPendingPurchaseRequest(pending);
+        entityManager.persist(item);
+        return item;
+    }
+
+    private void issue(InventoryItem item, String quantity, int daysAgo) {
+        InventoryRequestLineItem lineItem = new InventoryRequestLineItem();
+        lineItem.setRequestedItem(item);
+        lineItem.setRequestedQuantity(new BigDecimal(quantity));
+        lineItem.setStatus(RequestLineItemStatus.ISSUED);
+        request.addLineItem(lineItem);
+        entityManager.persist(lineItem);
+
+        InventoryIssue issue = new InventoryIssue();
+        issue.setRequestLineItem(lineItem);
+        issue.setInventoryRequest(request);
+        issue.setIssuedItem(item);
+        issue.setIssuedQuantity(new BigDecimal(quantity));
+        issue.setIssuedByUser(user);
+        issue.setIssuedToUser(user);
+        issue.setIssuedAt(LocalDateTime.now().minusDays(daysAgo));
+        issue.setItemValue(item.getUnitPrice().multiply(new BigDecimal(quantity)));
+        entityManager.persist(issue);
+    }
+}
@@ -0,0 +1,240 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.dto.BatchIssueItemDTO;
+import com.irrigation.erp.backend.dto.BatchIssueRequestDTO;
+import com.irrigation.erp.backend.dto.CreateGrnRequest;
+import com.irrigation.erp.backend.dto.GRNItemDTO;
+import com.irrigation.erp.backend.dto.InventoryItemCreateRequestDTO;
+import com.irrigation.erp.backend.dto.IssueRequestDTO;
+import com.irrigation.erp.backend.enums.RequestLineItemStatus;
+import com.irrigation.erp.backend.enums.RequestStatus;
+import com.irrigation.erp.backend.model.InventoryItem;
+import com.irrigation.erp.backend.model.InventoryRequest;
+import com.irrigation.erp.backend.model.InventoryRequestLineItem;
+import com.irrigation.erp.backend.model.ItemCategory;
+import com.irrigation.erp.backend.model.ItemType;
+import com.irrigation.erp.backend.model.PurchaseRequest;
+import com.irrigation.erp.backend.model.StockMovement;
+import com.irrigation.erp.backend.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ActiveProfiles("ci")
+@SpringBootTest
+@Transactional
+class StockLedgerTests {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryRequestService inventoryRequestService;
+
+    @Autowired
+    private GrnService grnService;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private StockLedgerVerifier stockLedgerVerifier;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private ItemCategory category;
+    private ItemType type;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("ledger-user");
+        user.setEmail("ledger-user@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        category = new ItemCategory(null, "ledger-category", null, "test");
+        entityManager.persist(category);
+        type = new ItemType(null, "ledger-type", null);
+        entityManager.persist(type);
+    }
+
+    @Test
+    void everyStockChangeIsRecordedInTheLedger() {
+        InventoryItemCreateRequestDTO create = new InventoryItemCreateRequestDTO();
+        create.setItemCode("LEDGER-1");
+        create.setItemName("Ledger item");
+        create.setUnitOfMeasurement("pcs");
+        create.setCurrentStockQuantity(new BigDecimal("20"));
+        create.setMinimumStockLevel(BigDecimal.ONE);
+        create.setLocationInStore("A1");
+        create.setUnitPrice(BigDecimal.TEN);
+        create.setItemCategoryName(category.getName());
+        create.setItemTypeName(type.getName());
+        create.setCreatingUserId(user.getId());
+        InventoryItem item = inventoryService.createInventoryItem(create);
+
+        inventoryService.adjustStock(item.getId(), new BigDecimal("5"), user.getId(), "found");
+        inventoryService.adjustStock(item.getId(), new BigDecimal("-3"), user.getId(), "damaged");
+
+        List<InventoryRequestLineItem> lines = seedRequest(item, "2", "4");
+        IssueRequestDTO single = new IssueRequestDTO();
+        single.setIssuedByUserId(user.getId());
+        single.setIssuedQuantity(new BigDecimal("2"));
+        inventoryRequestService.issueInventoryItem(lines.get(0).getId(), single);
+        BatchIssueItemDTO batchLine = new BatchIssueItemDTO();
+        batchLine.setInventoryRequestLineItemId(lines.get(1).getId());
+        batchLine.setIssuedQuantity(new BigDecimal("4"));
+        BatchIssueRequestDTO batch = new BatchIssueRequestDTO();
+        batch.setIssuedByUserId(user.getId());
+        batch.setItemsToIssue(List.of(batchLine));
+        inventoryRequestService.issueBatchItems(batch);
+
+        Long purchaseRequestId = seedPurchaseRequest();
+        grnService.createGrn(purchaseRequestId, grn("GRN-LEDGER-1", receivedLine("LEDGER-1", 10), receivedLine(null, 3)), user.getId());
+        assertThatThrownBy(() -> grnService.createGrn(purchaseRequestId,
+                grn("GRN-LEDGER-2", receivedLine("LEDGER-NONE", 1)), user.getId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'LEDGER-NONE'");
+        for (Integer quantity : new Integer[]{null, 0, -4}) {
+            GRNItemDTO line = receivedLine("LEDGER-1", 1);
+            line.setQuantity(quantity);
+            assertThatThrownBy(() -> grnService.createGrn(purchaseRequestId, grn("GRN-LEDGER-3", line), user.getId()))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("must be positive");
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(entityManager.find(InventoryItem.class, item.getId()).getCurrentStockQuantity()).isEqualByComparingTo("26");
+        assertThat(entityManager.createQuery(
+                        "SELECT m FROM StockMovement m WHERE m.item.id = :itemId ORDER BY m.id", StockMovement.class)
+                .setParameter("itemId", item.getId())
+                .getResultList())
+                .extracting(StockMovement::getMovementType, movement -> movement.getQuantity().intValue())
+                .containsExactly(
+                        tuple(StockMovement.Type.OPENING, 20),
+                        tuple(StockMovement.Type.ADJUSTMENT, 5),
+                        tuple(StockMovement.Type.ADJUSTMENT, -3),
+                        tuple(StockMovement.Type.ISSUE, -2),
+                        tuple(StockMovement.Type.ISSUE, -4),
+                        tuple(StockMovement.Type.RECEIPT, 10));
+        assertThat(stockLedgerVerifier.verifyRange(item.getId(), item.getId())).isEmpty();
+
+        jdbcTemplate.update("UPDATE inventory_items SET current_stock_quantity = 99 WHERE id = ?", item.getId());
+        assertThat(stockLedgerVerifier.verifyRange(item.getId(), item.getId()))
+                .extracting(StockLedgerVerifier.Mismatch::itemCode, mismatch -> mismatch.ledgerQuantity().intValue())
+                .containsExactly(tuple("LEDGER-1", 26));
+    }
+
+    @Test
+    void pointInTimeStockIsTheNearestSnapshotPlusTheMovementsAfterIt() {
+        Long itemId = seedItem("LEDGER-2").getId();
+        stockLedgerService.recordOpening(itemId, new BigDecimal("100"), user.getId(), at(1, 1));
+        stockLedgerService.recordAdjustment(itemId, new BigDecimal("-10"), user.getId(), "used", at(2, 1));
+        stockLedgerService.takeSnapshots();
+        stockLedgerService.recordAdjustment(itemId, new BigDecimal("-20"), user.getId(), "used", at(3, 15));
+        stockLedgerService.recordAdjustment(itemId, new BigDecimal("5"), user.getId(), "found", at(4, 10));
+        stockLedgerService.takeSnapshots();
+        stockLedgerService.recordAdjustment(itemId, new BigDecimal("-1"), user.getId(), "used", at(5, 1));
+
+        assertThat(jdbcTemplate.queryForList("SELECT quantity FROM stock_snapshots WHERE item_id = ? ORDER BY last_movement_id",
+                BigDecimal.class, itemId)).extracting(BigDecimal::intValue).containsExactly(90, 75);
+        assertThat(stockLedgerService.getStockAt(itemId, at(1, 15))).isEqualByComparingTo("100");
+        assertThat(stockLedgerService.getStockAt(itemId, at(2, 1))).isEqualByComparingTo("90");
+        assertThat(stockLedgerService.getStockAt(itemId, at(3, 31))).isEqualByComparingTo("70");
+        assertThat(stockLedgerService.getStockAt(itemId, at(4, 30))).isEqualByComparingTo("75");
+        assertThat(stockLedgerService.getStockAt(itemId, LocalDateTime.now())).isEqualByComparingTo("74");
+        assertThatThrownBy(() -> stockLedgerService.getStockAt(itemId, at(1, 1).minusSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void verificationPartitionsCoverTheIdRangeOnce() {
+        assertThat(StockLedgerVerifier.partition(1, 10, 4))
+                .containsExactly(new long[]{1, 3}, new long[]{4, 6}, new long[]{7, 9}, new long[]{10, 10});
+        assertThat(StockLedgerVerifier.partition(7, 7, 16)).containsExactly(new long[]{7, 7});
+    }
+
+    private static LocalDateTime at(int month, int day) {
+        return LocalDateTime.of(2025, month, day, 12, 0);
+    }
+
+    private InventoryItem seedItem(String code) {
+        InventoryItem item = new InventoryItem();
+        item.setItemCode(code);
+        item.setItemName(code + " item");
+        item.setUnitOfMeasurement("pcs");
+        item.setItemCategory(category);
+        item.setItemType(type);
+        item.setCurrentStockQuantity(BigDecimal.ZERO);
+        item.setMinimumStockLevel(BigDecimal.ONE);
+        item.setUnitPrice(BigDecimal.ONE);
+        item.setCreatingUser(user);
+        entityManager.persist(item);
+        return item;
+    }
+
+    private List<InventoryRequestLineItem> seedRequest(InventoryItem item, String... quantities) {
+        InventoryRequest request = new InventoryRequest();
+        request.setRequester(user);
+        request.setStatus(RequestStatus.PENDING);
+        request.setRequestedAt(LocalDateTime.now());
+        List<InventoryRequestLineItem> lines = new ArrayList<>();
+        for (String quantity : quantities) {
+            InventoryRequestLineItem lineItem = new InventoryRequestLineItem();
+            lineItem.setRequestedItem(item);
+            lineItem.setRequestedQuantity(new BigDecimal(quantity));
+            lineItem.setStatus(RequestLineItemStatus.PENDING);
+            request.addLineItem(lineItem);
+            lines.add(lineItem);
+        }
+        entityManager.persist(request);
+        return lines;
+    }
+
+    private Long seedPurchaseRequest() {
+        PurchaseRequest purchaseRequest = new PurchaseRequest();
+        purchaseRequest.setRequestedByUserId(user.getId());
+        purchaseRequest.setRequestedAt(LocalDateTime.now());
+        purchaseRequest.setTotalValue(BigDecimal.ZERO);
+        purchaseRequest.setStatus(PurchaseRequest.Status.APPROVED);
+        purchaseRequest.setItems(new ArrayList<>());
+        entityManager.persist(purchaseRequest);
+        return purchaseRequest.getId();
+    }
+
+    private static CreateGrnRequest grn(String receiptNo, GRNItemDTO... lines) {
+        CreateGrnRequest grn = new CreateGrnRequest();
+        grn.setReceiptNo(receiptNo);
+        grn.setReceivingStation("Main store");
+        grn.setItems(List.of(lines));
+        return grn;
+    }
+
+    private static GRNItemDTO receivedLine(String itemCode, int quantity) {
+        GRNItemDTO line = new GRNItemDTO();
+        line.setDescription(itemCode == null ? "Delivery charge" : itemCode + " delivery");
+        line.setQuantity(quantity);
+        line.setItemCode(itemCode);
+        return line;
+    }
+}
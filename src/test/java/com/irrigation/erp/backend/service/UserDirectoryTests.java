@@ -0,0 +1,147 @@
+package com.irrigation.erp.backend.service;
+
+import com.irrigation.erp.backend.dto.CursorPageResponseDTO;
+import com.irrigation.erp.backend.dto.UserDto;
+import com.irrigation.erp.backend.model.Role;
+import com.irrigation.erp.backend.model.User;
+import com.irrigation.erp.backend.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ActiveProfiles("ci")
+@SpringBootTest
+@Transactional
+class UserDirectoryTests {
+
+    private static final int DIRECTORY = 50_000;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Role role;
+
+    @BeforeEach
+    void setUp() {
+        role = new Role();
+        role.setName("dir-role");
+        entityManager.persist(role);
+    }
+
+    @Test
+    void pagesWalkTheDirectoryInUsernameOrderAndSkipInactiveUsersByDefault() {
+        user("dir-c", "Carol", "Ng", true);
+        user("dir-a", "Alice", "Fernando", true);
+        user("dir-d", "Dinesh", "Perera", false);
+        user("dir-b", "Bob", "Silva", true);
+        entityManager.flush();
+
+        assertThat(walk(UserService.SORT_BY_USERNAME, false)).containsExactly("dir-a", "dir-b", "dir-c");
+        assertThat(walk(UserService.SORT_BY_USERNAME, true)).containsExactly("dir-a", "dir-b", "dir-c", "dir-d");
+        assertThat(walk(UserService.SORT_BY_ID, false)).containsExactly("dir-c", "dir-a", "dir-b");
+
+        CursorPageResponseDTO<UserDto> first = userService.getUsersPage(null, 1, UserService.SORT_BY_USERNAME, false);
+        assertThat(first.getItems()).extracting(UserDto::getRoleName).containsOnly("dir-role");
+        assertThatThrownBy(() -> userService.getUsersPage(first.getNextCursor(), 1, UserService.SORT_BY_ID, false))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(userService.getUsersPage(null, 10_000, UserService.SORT_BY_ID, true).getSize())
+                .isEqualTo(UserService.MAX_PAGE_SIZE);
+    }
+
+    @Test
+    void nameSearchRanksPrefixesFirstAndDefaultsToActiveUsers() {
+        user("dir-1", "Kasun", "Wickramasinghe", true);
+        user("dir-2", "Nimal", "Kasunthilake", true);
+        user("dir-3", "Pradeep", "Makasun", true);
+        user("dir-4", "Kasuni", "Perera", false);
+        entityManager.flush();
+
+        assertThat(usernames("  KASUN ", null, false)).containsExactly("dir-1", "dir-2", "dir-3");
+        assertThat(usernames("kasun", null, true)).containsExactly("dir-4", "dir-1", "dir-2", "dir-3");
+        assertThat(usernames("kasun", 1, false)).containsExactly("dir-1");
+        assertThatThrownBy(() -> userService.searchUsersByName("ka", null, false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void nameSearchIsAnsweredFromTheTrigramIndex() {
+        jdbcTemplate.update("""
+                INSERT INTO users (username, password, email, first_name, last_name, is_active, created_at, must_change_password)
+                SELECT 'dir-gen-' || g, 'secret', 'dir-gen-' || g || '@example.com',
+                       (ARRAY['Amal', 'Nuwan', 'Sunil', 'Chamari', 'Dilani'])[g % 5 + 1],
+                       (ARRAY['Perera', 'Silva', 'Fernando', 'Bandara', 'Jayasuriya'])[g % 7 % 5 + 1] || g,
+                       g % 10 <> 0, now(), false
+                FROM generate_series(1, ?) g
+                """, DIRECTORY);
+        jdbcTemplate.execute("ANALYZE users");
+
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT id FROM users WHERE " + UserRepository.NAME_SEARCH_DOCUMENT + " LIKE '%bandara4200%'",
+                String.class));
+
+        assertThat(plan).contains("idx_users_name_search_trgm").doesNotContain("Seq Scan on users");
+    }
+
+    @Test
+    void deletingAUserRecordsItsRevocation() {
+        User removed = user("dir-removed", "Ruwan", "Dias", true);
+        User kept = user("dir-kept", "Kamal", "Dias", true);
+        entityManager.flush();
+
+        userService.deleteUser(removed.getId());
+        entityManager.flush();
+
+        assertThat(userRepository.findById(removed.getId())).isEmpty();
+        assertThat(userRepository.findDeletedUserIds()).contains(removed.getId()).doesNotContain(kept.getId());
+    }
+
+    private List<String> walk(String sortBy, boolean includeInactive) {
+        List<String> usernames = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageResponseDTO<UserDto> page = userService.getUsersPage(cursor, 2, sortBy, includeInactive);
+            page.getItems().forEach(user -> usernames.add(user.getUsername()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return usernames.stream().filter(username -> username.startsWith("dir-")).toList();
+    }
+
+    private List<String> usernames(String name, Integer limit, boolean includeInactive) {
+        return userService.searchUsersByName(name, limit, includeInactive).stream()
+                .map(UserDto::getUsername)
+                .toList();
+    }
+
+    private User user(String username, String firstName, String lastName, boolean active) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret");
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setIsActive(active);
+        user.setRole(role);
+        entityManager.persist(user);
+        return user;
+    }
+}
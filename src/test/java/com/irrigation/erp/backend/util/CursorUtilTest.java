@@ -0,0 +1,28 @@
+package com.irrigation.erp.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorUtilTest {
+
+    @Test
+    void roundTripsPartsContainingSeparators() {
+        String cursor = CursorUtil.encode("itemCode", "PVC.50/mm", "42");
+
+        assertThat(CursorUtil.decode(cursor, 3)).containsExactly("itemCode", "PVC.50/mm", "42");
+    }
+
+    @Test
+    void rejectsTamperedCursor() {
+        String cursor = CursorUtil.encode("itemCode", "A-1", "7");
+
+        assertThatThrownBy(() -> CursorUtil.decode(cursor, 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(CursorUtil.INVALID_CURSOR);
+        assertThatThrownBy(() -> CursorUtil.decode("%%%.abc.def", 3))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(CursorUtil.INVALID_CURSOR);
+    }
+}
@@ -0,0 +1,66 @@
+package com.irrigation.erp.backend.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "testSecretKey12345678901234567890123456789012345678901234567890";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "tokenExpiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheTtl", Duration.ofMinutes(5));
+        jwtUtil.init();
+    }
+
+    @Test
+    void validTokenIsParsedOnceAndServedFromCache() {
+        String token = jwtUtil.generateToken("keeper@example.com", "keeper", "STORE_KEEPER", 7L);
+
+        Claims first = jwtUtil.getValidClaims(token).orElseThrow();
+        Claims second = jwtUtil.getValidClaims(token).orElseThrow();
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getSubject()).isEqualTo("keeper@example.com");
+        assertThat(jwtUtil.getRoleFromToken(token)).isEqualTo("STORE_KEEPER");
+        assertThat(jwtUtil.getUserIdFromToken(token)).isEqualTo(7L);
+        assertThat(jwtUtil.validateToken(token, "keeper@example.com")).isTrue();
+        assertThat(jwtUtil.validateToken(token, "someone@example.com")).isFalse();
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokens() {
+        String token = jwtUtil.generateToken("keeper@example.com", "keeper", "STORE_KEEPER", 7L);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        String expired = Jwts.builder()
+                .setSubject("keeper@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() - 1_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(jwtUtil.getValidClaims(tampered)).isEmpty();
+        assertThat(jwtUtil.getValidClaims(expired)).isEmpty();
+        assertThat(jwtUtil.getValidClaims(" ")).isEmpty();
+        assertThat(jwtUtil.isTokenExpired(expired)).isTrue();
+        assertThat(jwtUtil.validateToken(tampered, "keeper@example.com")).isFalse();
+        assertThatThrownBy(() -> jwtUtil.getEmailFromToken(tampered)).isInstanceOf(JwtException.class);
+    }
+}
@@ -0,0 +1,30 @@
+package com.irrigation.erp.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchTermUtilTest {
+
+    @Test
+    void normalisesTheTermAndEscapesLikeWildcards() {
+        SearchTermUtil.SearchTerm search = SearchTermUtil.parse("  50%_Off\\ ", null);
+
+        assertThat(search.term()).isEqualTo("50%_off\\");
+        assertThat(search.containsPattern()).isEqualTo("%50\\%\\_off\\\\%");
+        assertThat(search.prefixPattern()).isEqualTo("50\\%\\_off\\\\%");
+        assertThat(search.limit()).isEqualTo(SearchTermUtil.DEFAULT_SEARCH_LIMIT);
+    }
+
+    @Test
+    void clampsTheLimitAndRejectsShortTerms() {
+        assertThat(SearchTermUtil.parse("pipe", 0).limit()).isEqualTo(1);
+        assertThat(SearchTermUtil.parse("pipe", 1000).limit()).isEqualTo(SearchTermUtil.MAX_SEARCH_LIMIT);
+        assertThatThrownBy(() -> SearchTermUtil.parse(" ab ", 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("at least " + SearchTermUtil.MIN_SEARCH_LENGTH);
+        assertThatThrownBy(() -> SearchTermUtil.parse(null, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}